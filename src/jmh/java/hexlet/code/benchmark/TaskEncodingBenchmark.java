@@ -0,0 +1,145 @@
+package hexlet.code.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import hexlet.code.model.BaseEntity;
+import hexlet.code.model.Label;
+import hexlet.code.model.Task;
+import hexlet.code.model.TaskStatus;
+import hexlet.code.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding time of a GET /api/tasks response in JSON, CBOR and Smile.
+ * Payload sizes are printed once per fork, before the measurements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskEncodingBenchmark {
+
+    private static final int USERS = 50;
+    private static final int STATUSES = 5;
+    private static final int LABELS = 20;
+    private static final int LABELS_PER_TASK = 3;
+    private static final TypeReference<List<Task>> TASK_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10000"})
+    private int tasks;
+
+    private final ObjectMapper json = mapper(Jackson2ObjectMapperBuilder.json());
+    private final ObjectMapper cbor = mapper(Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()));
+    private final ObjectMapper smile = mapper(Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()));
+
+    private List<Task> taskList;
+    private byte[] jsonPayload;
+    private byte[] cborPayload;
+    private byte[] smilePayload;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(1);
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            User user = new User("user" + i + "@example.com", "First" + i, "Last" + i, "password", 0);
+            fill(user, i);
+            users.add(user);
+        }
+        List<TaskStatus> statuses = new ArrayList<>();
+        for (int i = 1; i <= STATUSES; i++) {
+            TaskStatus status = new TaskStatus("Status " + i);
+            fill(status, i);
+            statuses.add(status);
+        }
+        List<Label> labels = new ArrayList<>();
+        for (int i = 1; i <= LABELS; i++) {
+            Label label = new Label("Label " + i);
+            fill(label, i);
+            labels.add(label);
+        }
+
+        taskList = new ArrayList<>();
+        for (int i = 1; i <= tasks; i++) {
+            Set<Label> taskLabels = new HashSet<>();
+            for (int j = 0; j < LABELS_PER_TASK; j++) {
+                taskLabels.add(labels.get(random.nextInt(LABELS)));
+            }
+            Task task = new Task("Task " + i, "Description of task " + i,
+                    statuses.get(random.nextInt(STATUSES)),
+                    users.get(random.nextInt(USERS)),
+                    users.get(random.nextInt(USERS)),
+                    taskLabels);
+            fill(task, i);
+            taskList.add(task);
+        }
+
+        jsonPayload = json.writeValueAsBytes(taskList);
+        cborPayload = cbor.writeValueAsBytes(taskList);
+        smilePayload = smile.writeValueAsBytes(taskList);
+        System.out.printf("%nPayload bytes for %d tasks: json %d, cbor %d, smile %d%n",
+                tasks, jsonPayload.length, cborPayload.length, smilePayload.length);
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return json.writeValueAsBytes(taskList);
+    }
+
+    @Benchmark
+    public byte[] writeCbor() throws IOException {
+        return cbor.writeValueAsBytes(taskList);
+    }
+
+    @Benchmark
+    public byte[] writeSmile() throws IOException {
+        return smile.writeValueAsBytes(taskList);
+    }
+
+    @Benchmark
+    public List<Task> readJson() throws IOException {
+        return json.readValue(jsonPayload, TASK_LIST);
+    }
+
+    @Benchmark
+    public List<Task> readCbor() throws IOException {
+        return cbor.readValue(cborPayload, TASK_LIST);
+    }
+
+    @Benchmark
+    public List<Task> readSmile() throws IOException {
+        return smile.readValue(smilePayload, TASK_LIST);
+    }
+
+    // the settings Spring Boot applies to the application mapper
+    private static ObjectMapper mapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+
+    private static void fill(BaseEntity entity, long id) {
+        Date now = new Date();
+        entity.setId(id);
+        entity.setCreatedAt(now);
+        entity.setUpdatedAt(now);
+    }
+}
@@ -0,0 +1,92 @@
+package hexlet.code.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import hexlet.code.component.TaskQueryTemplates;
+import hexlet.code.dto.TaskFilter;
+import hexlet.code.model.QTask;
+import hexlet.code.model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of turning GET /api/tasks parameters into a query, before and after TaskFilter.
+ * Run with {@code ./gradlew jmh}; add {@code -prof gc} to the JMH arguments to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskFilterBenchmark {
+
+    private final Map<String, String> rawParams = Map.of(
+            "taskStatus", "3",
+            "executorId", "7",
+            "labels", "[1,2,5]"
+    );
+
+    private final Map<String, String[]> parameters = Map.of(
+            "taskStatus", new String[]{"3"},
+            "executorId", new String[]{"7"},
+            "labels", new String[]{"[1,2,5]"}
+    );
+
+    private final TaskQueryTemplates templates = new TaskQueryTemplates();
+
+    @Benchmark
+    public String mapParsingWithQueryDsl() throws JsonProcessingException {
+        QTask task = QTask.task;
+        BooleanBuilder booleanBuilder = new BooleanBuilder();
+        JPAQuery<Task> query = new JPAQuery<Task>().select(task).from(task);
+
+        long taskStatusId = getParameter("taskStatus", rawParams);
+        if (taskStatusId > 0) {
+            booleanBuilder.and(task.taskStatus.id.eq(taskStatusId));
+        }
+
+        long executorId = getParameter("executorId", rawParams);
+        if (executorId > 0) {
+            booleanBuilder.and(task.executor.id.eq(executorId));
+        }
+
+        long authorId = getParameter("authorId", rawParams);
+        if (authorId > 0) {
+            booleanBuilder.and(task.author.id.eq(authorId));
+        }
+
+        if (rawParams.get("labels") != null) {
+            ObjectMapper objectMapper = new ObjectMapper()
+                    .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+            List<Long> labelIds = Arrays.asList(
+                    objectMapper.readValue(rawParams.get("labels"), Long[].class)
+            );
+            booleanBuilder.and(task.labels.any().id.in(labelIds));
+        }
+
+        return query.where(booleanBuilder).toString();
+    }
+
+    @Benchmark
+    public String typedFilterWithTemplate() {
+        TaskFilter filter = TaskFilter.fromParameters(parameters);
+        return templates.jpql(TaskQueryTemplates.Kind.LIST, filter, null, null);
+    }
+
+    private static long getParameter(String paramName, Map<String, String> requestParams) {
+        return Long.parseLong(Optional.ofNullable(
+                requestParams.get(paramName)
+        ).orElseGet(() -> "-1"));
+    }
+}
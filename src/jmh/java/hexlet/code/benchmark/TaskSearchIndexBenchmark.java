@@ -0,0 +1,84 @@
+package hexlet.code.benchmark;
+
+import hexlet.code.component.TaskSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search and update latency of the in-process task index over synthetic task names and descriptions,
+ * for the searches the task service makes: all matches ranked for a list, a creation time window for a page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskSearchIndexBenchmark {
+
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int WORDS_IN_NAME = 4;
+    private static final int WORDS_IN_DESCRIPTION = 12;
+    // a page of 50 tasks and one more to tell whether another page follows
+    private static final int PAGE_WINDOW = 51;
+    private static final String COMMON_WORDS = "word1 word2 word3 word4";
+
+    @Param({"1000000"})
+    private int tasks;
+
+    private TaskSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new TaskSearchIndex(null);
+        Random random = new Random(1);
+        for (long id = 1; id <= tasks; id++) {
+            index.put(id, id, words(random, WORDS_IN_NAME), words(random, WORDS_IN_DESCRIPTION));
+        }
+    }
+
+    @Benchmark
+    public long[] singleWord() {
+        return index.search("word123");
+    }
+
+    @Benchmark
+    public long[] prefix() {
+        return index.search("word12");
+    }
+
+    @Benchmark
+    public long[] twoWords() {
+        return index.search("word1 word2");
+    }
+
+    @Benchmark
+    public TaskSearchIndex.Window prefixPage() {
+        return index.searchFrom("word12", Long.MIN_VALUE, PAGE_WINDOW);
+    }
+
+    @Benchmark
+    public TaskSearchIndex.Window twoWordsPage() {
+        return index.searchFrom("word1 word2", Long.MIN_VALUE, PAGE_WINDOW);
+    }
+
+    // reindexing removes the task from the postings of its old tokens
+    @Benchmark
+    public void update() {
+        index.put(1, 1, COMMON_WORDS, COMMON_WORDS);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("word").append(random.nextInt(VOCABULARY_SIZE)).append(' ');
+        }
+        return text.toString();
+    }
+}
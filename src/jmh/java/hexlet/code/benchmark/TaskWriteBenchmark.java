@@ -0,0 +1,128 @@
+package hexlet.code.benchmark;
+
+import hexlet.code.AppApplication;
+import hexlet.code.config.security.UserPrincipal;
+import hexlet.code.dto.TaskDto;
+import hexlet.code.model.Label;
+import hexlet.code.model.TaskStatus;
+import hexlet.code.model.User;
+import hexlet.code.repository.LabelRepository;
+import hexlet.code.repository.TaskStatusRepository;
+import hexlet.code.repository.UserRepository;
+import hexlet.code.service.TaskService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating and updating a task with a status, an executor and three labels through the service,
+ * on an in-memory H2 database, with the application and Hibernate caches cleared before every operation or warm.
+ * Prepared statements per operation are printed after every iteration. Cold / warm, create took 7 / 5 while
+ * the task was read back after clearing the whole persistence context and takes 5 / 4 with only the task and
+ * its references detached; update takes 3 / 2 either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskWriteBenchmark {
+
+    private static final int LABELS_PER_TASK = 3;
+
+    @Param({"cold", "warm"})
+    private String caches;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private CacheManager cacheManager;
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private TaskDto dto;
+    private long taskId;
+    private long operations;
+    private long names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AppApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN", "outbox.dispatcher.enabled=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true", "ROLLBAR_TOKEN=benchmark")
+                .run();
+        taskService = context.getBean(TaskService.class);
+        cacheManager = context.getBean(CacheManager.class);
+        sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+
+        User user = context.getBean(UserRepository.class)
+                .save(new User("author@example.com", "First", "Last", "password", 0));
+        TaskStatus status = context.getBean(TaskStatusRepository.class).save(new TaskStatus("New"));
+        Set<Long> labelIds = new HashSet<>();
+        for (int i = 0; i < LABELS_PER_TASK; i++) {
+            labelIds.add(context.getBean(LabelRepository.class).save(new Label("Label " + i)).getId());
+        }
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getEmail(), user.getTokenVersion());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        dto = new TaskDto("Task", "Description", status.getId(), user.getId(), labelIds);
+        taskId = taskService.createTask(dto).getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearStatistics() {
+        statistics.clear();
+        operations = 0;
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCaches() {
+        if ("cold".equals(caches)) {
+            cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+            sessionFactory.getCache().evictAllRegions();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements() {
+        System.out.printf("%nStatements per operation: %.2f%n",
+                (double) statistics.getPrepareStatementCount() / Math.max(1, operations));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public long createTask() {
+        operations++;
+        dto.setName("Task " + ++names);
+        return taskService.createTask(dto).getId();
+    }
+
+    @Benchmark
+    public long updateTask() {
+        operations++;
+        dto.setName("Task " + ++names);
+        return taskService.updateTask(taskId, dto, null).getId();
+    }
+}
@@ -0,0 +1,53 @@
+package hexlet.code.benchmark;
+
+import hexlet.code.component.JWTHelper;
+import hexlet.code.component.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating a request that repeats a token, with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenVerificationBenchmark {
+
+    private static final long EXPIRATION_SEC = 86_400;
+    private static final long CLOCK_SKEW_SEC = 300;
+    private static final long MAXIMUM_SIZE = 10_000;
+
+    private JWTHelper jwtHelper;
+    private VerifiedTokenCache verifiedTokens;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtHelper = new JWTHelper("task_tracker", EXPIRATION_SEC, CLOCK_SKEW_SEC, "secret");
+        verifiedTokens = new VerifiedTokenCache(jwtHelper, new SimpleMeterRegistry(), MAXIMUM_SIZE, EXPIRATION_SEC);
+        token = jwtHelper.expiring(Map.of(
+                "username", "user@example.com",
+                JWTHelper.USER_ID, 1L,
+                JWTHelper.TOKEN_VERSION, 0
+        ));
+    }
+
+    @Benchmark
+    public Map<String, Object> verify() {
+        return jwtHelper.verify(token);
+    }
+
+    @Benchmark
+    public Map<String, Object> verifyCached() {
+        return verifiedTokens.verify(token);
+    }
+}
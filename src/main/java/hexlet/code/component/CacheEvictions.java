@@ -0,0 +1,39 @@
+package hexlet.code.component;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts cache entries when the current transaction commits. An eviction before the commit lets a concurrent
+ * read cache the old row again, for as long as the entry lives. Outside a transaction the entry is evicted at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheEvictions {
+
+    private final CacheManager cacheManager;
+
+    public void evict(final String cacheName, final Object key) {
+        afterCommit(() -> cacheManager.getCache(cacheName).evict(key));
+    }
+
+    public void clear(final String cacheName) {
+        afterCommit(() -> cacheManager.getCache(cacheName).clear());
+    }
+
+    private void afterCommit(final Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package hexlet.code.component;
+
+import hexlet.code.event.LabelEvent;
+import hexlet.code.event.TaskStatusEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static hexlet.code.component.ResourceValidators.LABELS;
+import static hexlet.code.component.ResourceValidators.TASK_STATUSES;
+
+/**
+ * Counts the changes of the users, labels and task statuses tables, one per transaction that changes a table,
+ * so validators of their collections read a counter row instead of aggregating the table.
+ * Task changes are counted by the sequence of {@link TaskChangeLog}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeCounters {
+
+    private static final String BUMP =
+            "update change_counters set version = version + 1, updated_at = current_timestamp where name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener
+    public void onLabelEvent(LabelEvent event) {
+        changed(LABELS);
+    }
+
+    @EventListener
+    public void onTaskStatusEvent(TaskStatusEvent event) {
+        changed(TASK_STATUSES);
+    }
+
+    public void changed(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jdbcTemplate.update(BUMP, table);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            final Set<String> tables = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    tables.forEach(changed -> jdbcTemplate.update(BUMP, changed));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(ChangeCounters.this);
+                }
+            });
+            pending = tables;
+        }
+        pending.add(table);
+    }
+}
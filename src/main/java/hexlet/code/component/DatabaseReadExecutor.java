@@ -0,0 +1,87 @@
+package hexlet.code.component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for heavy read queries, so servlet workers are free while the queries run.
+ * Unless configured otherwise it has a thread per connection of the Hikari pool less the connections reserved
+ * for servlet threads and background jobs, so a burst of reads cannot take every connection; a full queue
+ * rejects new reads.
+ * Every read runs in its own read-only transaction whose timeout matches the endpoint's, so the database
+ * stops a query the client is no longer waiting for.
+ */
+@Component
+public class DatabaseReadExecutor {
+
+    private static final long MS_PER_SECOND = 1000;
+
+    private final ThreadPoolExecutor executor;
+    private final Executor securedExecutor;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    public DatabaseReadExecutor(
+            @Value("${db-reads.threads:0}") final int configuredThreads,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") final int poolSize,
+            @Value("${db-reads.reserved-connections:2}") final int reservedConnections,
+            @Value("${db-reads.queue-capacity:200}") final int queueCapacity,
+            final PlatformTransactionManager transactionManager,
+            final MeterRegistry meterRegistry) {
+        final int threads = configuredThreads > 0 ? configuredThreads : Math.max(1, poolSize - reservedConnections);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("db-reads-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.securedExecutor = new DelegatingSecurityContextExecutor(executor);
+        this.transactionManager = transactionManager;
+        this.meterRegistry = meterRegistry;
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "dbReads", List.of());
+    }
+
+    /**
+     * Schedules a read.
+     *
+     * @param endpoint  name of the endpoint, tags the db.reads timer and db.reads.timeouts counter
+     * @param timeoutMs time after which the read fails with {@link TimeoutException}
+     * @param read      the read, run with the caller's security context
+     * @param <T>       result type
+     * @return future completed on the read pool
+     * @throws java.util.concurrent.RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> supply(final String endpoint, final long timeoutMs, final Supplier<T> read) {
+        final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout((int) Math.max(1, (timeoutMs + MS_PER_SECOND - 1) / MS_PER_SECOND));
+        return CompletableFuture
+                .supplyAsync(() -> meterRegistry.timer("db.reads", "endpoint", endpoint)
+                        .record(() -> transaction.execute(status -> read.get())), securedExecutor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    if (error instanceof TimeoutException) {
+                        meterRegistry.counter("db.reads.timeouts", "endpoint", endpoint).increment();
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
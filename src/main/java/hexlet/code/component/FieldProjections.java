@@ -0,0 +1,288 @@
+package hexlet.code.component;
+
+import hexlet.code.exception.BadRequestException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse fieldsets: turns a {@code fields} parameter into a scalar query reading only the requested columns,
+ * joining only the references they belong to, and shapes the rows like the entity JSON.
+ * Naming a reference, e.g. {@code executor}, selects all of its whitelisted fields.
+ * Collections are loaded with one more query for all rows, and only when some of their fields are requested.
+ */
+@Component
+public class FieldProjections {
+
+    public static final String FIELDS = "fields";
+
+    private static final String ID = "id";
+    private static final int COLLECTION_CHUNK = 1000;
+    private static final int MAX_CACHED_SELECTIONS = 1000;
+
+    public static final Projection TASK_FIELDS = new Projection("Task", "t",
+            fields(
+                    ID, "t.id",
+                    "name", "t.name",
+                    "description", "t.description",
+                    "createdAt", "t.createdAt",
+                    "taskStatus.id", "t.taskStatus.id",
+                    "taskStatus.name", "ts.name",
+                    "taskStatus.createdAt", "ts.createdAt",
+                    "author.id", "t.author.id",
+                    "author.email", "a.email",
+                    "author.firstName", "a.firstName",
+                    "author.lastName", "a.lastName",
+                    "author.createdAt", "a.createdAt",
+                    "executor.id", "t.executor.id",
+                    "executor.email", "e.email",
+                    "executor.firstName", "e.firstName",
+                    "executor.lastName", "e.lastName",
+                    "executor.createdAt", "e.createdAt",
+                    "labels.id", "lb.id",
+                    "labels.name", "lb.name",
+                    "labels.createdAt", "lb.createdAt"),
+            Map.of("ts", " left join t.taskStatus ts",
+                    "a", " left join t.author a",
+                    "e", " left join t.executor e",
+                    "lb", " join t.labels lb"),
+            Set.of("labels"));
+
+    public static final Projection USER_FIELDS = new Projection("User", "u",
+            fields(
+                    ID, "u.id",
+                    "email", "u.email",
+                    "firstName", "u.firstName",
+                    "lastName", "u.lastName",
+                    "createdAt", "u.createdAt"),
+            Map.of(),
+            Set.of());
+
+    public static final Projection LABEL_FIELDS = new Projection("Label", "l",
+            fields(
+                    ID, "l.id",
+                    "name", "l.name",
+                    "createdAt", "l.createdAt"),
+            Map.of(),
+            Set.of());
+
+    private final Map<String, Selection> selections = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // the whitelist of a resource: field paths in output order mapped to JPQL expressions,
+    // the join clause each alias needs, and the references that are collections
+    public record Projection(String entity, String alias, Map<String, String> fields, Map<String, String> joins,
+                             Set<String> collections) {
+    }
+
+    // a parsed fields parameter: the fields to output, the query of the entity and its references
+    // and one query per requested collection, all without the where clause
+    public record Selection(Projection projection, Set<String> visible, Part main, Map<String, Part> collections) {
+    }
+
+    // the first column is always the entity id
+    public record Part(List<String> columns, String jpql) {
+    }
+
+    /**
+     * Validates and parses the {@code fields} parameter.
+     *
+     * @param projection resource to select from
+     * @param fields     comma-separated field paths or reference names
+     * @return the selection, reused for the same set of fields
+     * @throws BadRequestException when a field is not whitelisted
+     */
+    public Selection select(final Projection projection, final String fields) {
+        final Set<String> requested = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            final String field = name.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (projection.fields().containsKey(field)) {
+                requested.add(field);
+                continue;
+            }
+            final List<String> referenceFields = projection.fields().keySet().stream()
+                    .filter(path -> path.startsWith(field + "."))
+                    .toList();
+            if (referenceFields.isEmpty()) {
+                throw new BadRequestException("Unknown field '" + field + "', expected some of "
+                        + projection.fields().keySet());
+            }
+            requested.addAll(referenceFields);
+        }
+        if (requested.isEmpty()) {
+            throw new BadRequestException("No fields requested");
+        }
+
+        // same fields in any order share one selection, in the whitelist order
+        final Set<String> visible = new LinkedHashSet<>();
+        projection.fields().keySet().stream().filter(requested::contains).forEach(visible::add);
+        final String key = projection.entity() + ":" + String.join(",", visible);
+        final Selection cached = selections.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final Selection selection = render(projection, visible);
+        if (selections.size() < MAX_CACHED_SELECTIONS) {
+            selections.put(key, selection);
+        }
+        return selection;
+    }
+
+    /**
+     * Shapes the rows of a selection's query, loading the requested collections.
+     *
+     * @param selection selection the rows were read with
+     * @param rows      query rows, in output order
+     * @return a map per row, with nested maps for references and lists for collections
+     */
+    public List<Map<String, Object>> toMaps(final Selection selection, final List<Tuple> rows) {
+        final List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        final Map<Long, Map<String, Object>> byId = new HashMap<>();
+        for (Tuple row : rows) {
+            final Map<String, Object> item = toMap(selection, selection.main().columns(), row);
+            result.add(item);
+            byId.put((Long) row.get(0), item);
+        }
+        selection.collections().forEach((collection, part) -> loadCollection(selection, collection, part, byId));
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAll(final Projection projection, final String fields) {
+        final Selection selection = select(projection, fields);
+        return toMaps(selection, entityManager
+                .createQuery(selection.main().jpql() + " order by " + projection.alias() + ".id", Tuple.class)
+                .getResultList());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> findById(final Projection projection, final long id, final String fields) {
+        final Selection selection = select(projection, fields);
+        final List<Tuple> rows = entityManager
+                .createQuery(selection.main().jpql() + " where " + projection.alias() + ".id = :id", Tuple.class)
+                .setParameter(ID, id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            throw new NoSuchElementException(projection.entity() + " " + id + " not found");
+        }
+        return toMaps(selection, rows).get(0);
+    }
+
+    private static Selection render(final Projection projection, final Set<String> visible) {
+        final List<String> columns = new ArrayList<>(List.of(ID));
+        final Map<String, List<String>> collectionColumns = new LinkedHashMap<>();
+        for (String path : visible) {
+            final String reference = referenceOf(path);
+            final List<String> target = reference != null && projection.collections().contains(reference)
+                    ? collectionColumns.computeIfAbsent(reference, key -> new ArrayList<>(List.of(ID)))
+                    : columns;
+            // a reference id comes first and tells a missing reference from one with null fields
+            if (reference != null && !target.contains(reference + ".id")) {
+                target.add(reference + ".id");
+            }
+            if (!target.contains(path)) {
+                target.add(path);
+            }
+        }
+
+        final Map<String, Part> collections = new LinkedHashMap<>();
+        collectionColumns.forEach((collection, paths) -> collections.put(collection, part(projection, paths)));
+        return new Selection(projection, Set.copyOf(visible), part(projection, columns), collections);
+    }
+
+    private static Part part(final Projection projection, final List<String> columns) {
+        final StringJoiner select = new StringJoiner(", ", "select ", "");
+        final Set<String> aliases = new LinkedHashSet<>();
+        for (String path : columns) {
+            final String expression = projection.fields().get(path);
+            final String alias = expression.substring(0, expression.indexOf('.'));
+            if (!alias.equals(projection.alias())) {
+                aliases.add(alias);
+            }
+            select.add(expression);
+        }
+        final StringBuilder jpql = new StringBuilder(select.toString())
+                .append(" from ").append(projection.entity()).append(' ').append(projection.alias());
+        aliases.forEach(alias -> jpql.append(projection.joins().get(alias)));
+        return new Part(List.copyOf(columns), jpql.toString());
+    }
+
+    private void loadCollection(final Selection selection,
+                                final String collection,
+                                final Part part,
+                                final Map<Long, Map<String, Object>> owners) {
+        owners.values().forEach(owner -> owner.put(collection, new ArrayList<>()));
+        final List<Long> ids = List.copyOf(owners.keySet());
+        final String alias = selection.projection().alias();
+        final String jpql = part.jpql() + " where " + alias + ".id in :ids order by " + alias + ".id";
+        for (int from = 0; from < ids.size(); from += COLLECTION_CHUNK) {
+            entityManager.createQuery(jpql, Tuple.class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + COLLECTION_CHUNK, ids.size())))
+                    .getResultList()
+                    .forEach(row -> collectionOf(owners.get((Long) row.get(0)), collection)
+                            .add(toMap(selection, part.columns(), row).get(collection)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> collectionOf(final Map<String, Object> owner, final String collection) {
+        return (List<Object>) owner.get(collection);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toMap(final Selection selection,
+                                             final List<String> columns,
+                                             final Tuple row) {
+        final Map<String, Object> item = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            final String path = columns.get(i);
+            final Object value = row.get(i);
+            final String reference = referenceOf(path);
+            if (reference == null) {
+                if (selection.visible().contains(path)) {
+                    item.put(path, value);
+                }
+            } else if (!item.containsKey(reference)) {
+                // the reference id column
+                item.put(reference, value == null ? null : new LinkedHashMap<String, Object>());
+                if (value != null && selection.visible().contains(path)) {
+                    ((Map<String, Object>) item.get(reference)).put(ID, value);
+                }
+            } else if (item.get(reference) != null && selection.visible().contains(path)) {
+                ((Map<String, Object>) item.get(reference)).put(path.substring(reference.length() + 1), value);
+            }
+        }
+        return item;
+    }
+
+    private static String referenceOf(final String path) {
+        final int dot = path.indexOf('.');
+        return dot < 0 ? null : path.substring(0, dot);
+    }
+
+    private static Map<String, String> fields(final String... pathsAndExpressions) {
+        final Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < pathsAndExpressions.length; i += 2) {
+            fields.put(pathsAndExpressions[i], pathsAndExpressions[i + 1]);
+        }
+        return fields;
+    }
+}
@@ -7,6 +7,10 @@ import io.jsonwebtoken.impl.DefaultClock;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
 
@@ -16,6 +20,9 @@ import static io.jsonwebtoken.impl.TextCodec.BASE64;
 @Component
 public class JWTHelper {
 
+    public static final String USER_ID = "userId";
+    public static final String TOKEN_VERSION = "tokenVersion";
+
     private final String secretKey;
     private final String issuer;
     private final Long expirationSec;
@@ -50,6 +57,21 @@ public class JWTHelper {
                 .getBody();
     }
 
+    /**
+     * SHA-256 digest of a token, for storing or indexing tokens without keeping them.
+     *
+     * @param token the token
+     * @return base64-encoded digest
+     */
+    public static String digest(final String token) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private Claims getClaims(final Map<String, Object> attributes, final Long expiresInSec) {
         final Claims claims = Jwts.claims();
         claims.setIssuer(issuer);
@@ -0,0 +1,118 @@
+package hexlet.code.component;
+
+import hexlet.code.event.ChangeType;
+import hexlet.code.event.OutboxConsumer;
+import hexlet.code.event.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox in batches on a single background thread and hands every batch to all consumers.
+ * Rows are removed only after every consumer has accepted them, which gives at-least-once delivery;
+ * a failing batch is retried on the next poll, so later changes never overtake it.
+ * Runs on one instance only, other instances should disable it.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final String SELECT_BATCH = """
+            select id, aggregate_type, aggregate_id, event_type, payload, created_at
+            from outbox_events order by id
+            """;
+    private static final String DELETE_EVENT = "delete from outbox_events where id = ?";
+    private static final String COUNT_EVENTS = "select count(*) from outbox_events";
+    private static final int ID = 1;
+    private static final int AGGREGATE_TYPE = 2;
+    private static final int AGGREGATE_ID = 3;
+    private static final int EVENT_TYPE = 4;
+    private static final int PAYLOAD = 5;
+    private static final int CREATED_AT = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<OutboxConsumer> consumers;
+    private final int batchSize;
+    private final Counter dispatched;
+    private final AtomicLong lagMs = new AtomicLong();
+    private final ScheduledExecutorService executor;
+
+    public OutboxDispatcher(final JdbcTemplate jdbcTemplate,
+                            final List<OutboxConsumer> consumers,
+                            final MeterRegistry meterRegistry,
+                            @Value("${outbox.batch-size:500}") final int batchSize,
+                            @Value("${outbox.poll-interval-ms:500}") final long pollIntervalMs,
+                            @Value("${outbox.dispatcher.enabled:true}") final boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consumers = consumers;
+        this.batchSize = batchSize;
+        this.dispatched = meterRegistry.counter("outbox.dispatched");
+        TimeGauge.builder("outbox.lag", lagMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest change not yet dispatched")
+                .register(meterRegistry);
+        meterRegistry.gauge("outbox.pending", jdbcTemplate,
+                template -> template.queryForObject(COUNT_EVENTS, Long.class));
+        this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbox-"));
+        if (enabled) {
+            executor.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Dispatches everything in the outbox.
+     *
+     * @return number of dispatched changes
+     */
+    public synchronized int dispatch() {
+        int total = 0;
+        while (true) {
+            final List<OutboxEvent> events = jdbcTemplate.query(connection -> {
+                final var statement = connection.prepareStatement(SELECT_BATCH);
+                statement.setMaxRows(batchSize);
+                return statement;
+            }, (resultSet, rowNumber) -> new OutboxEvent(
+                    resultSet.getLong(ID),
+                    resultSet.getString(AGGREGATE_TYPE),
+                    resultSet.getLong(AGGREGATE_ID),
+                    ChangeType.valueOf(resultSet.getString(EVENT_TYPE)),
+                    resultSet.getString(PAYLOAD),
+                    resultSet.getTimestamp(CREATED_AT)));
+            if (events.isEmpty()) {
+                lagMs.set(0);
+                return total;
+            }
+            lagMs.set(System.currentTimeMillis() - events.get(0).createdAt().getTime());
+
+            consumers.forEach(consumer -> consumer.accept(events));
+            jdbcTemplate.batchUpdate(DELETE_EVENT, events, batchSize,
+                    (statement, event) -> statement.setLong(ID, event.id()));
+            dispatched.increment(events.size());
+            total += events.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void poll() {
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            log.warn("Outbox dispatch failed, retrying on the next poll", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package hexlet.code.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hexlet.code.config.security.UserPrincipal;
+import hexlet.code.event.TaskEvent;
+import hexlet.code.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.NoSuchElementException;
+
+import static hexlet.code.event.ChangeType.DELETED;
+
+/**
+ * Ownership checks for {@code @PreAuthorize} guards. Users are compared by the id carried in the principal,
+ * task authors come from a small cache kept current by task events, falling back to a single projected query.
+ */
+@Component
+public class OwnershipChecks {
+
+    private final TaskRepository taskRepository;
+    private final Cache<Long, Long> taskAuthors;
+
+    public OwnershipChecks(final TaskRepository taskRepository,
+                           @Value("${tasks.author-cache.maximum-size:100000}") final long maximumSize) {
+        this.taskRepository = taskRepository;
+        this.taskAuthors = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public boolean isUser(final long userId, final UserPrincipal principal) {
+        return principal.getId() == userId;
+    }
+
+    public boolean isTaskAuthor(final long taskId, final UserPrincipal principal) {
+        final Long authorId = taskAuthors.get(taskId, id -> taskRepository.findAuthorIdById(id)
+                .orElseThrow(() -> new NoSuchElementException("Task not found")));
+        return authorId == principal.getId();
+    }
+
+    @TransactionalEventListener
+    public void onTaskEvent(TaskEvent event) {
+        if (event.type() == DELETED) {
+            taskAuthors.invalidate(event.taskId());
+        } else {
+            taskAuthors.put(event.taskId(), event.task().getAuthor().getId());
+        }
+    }
+}
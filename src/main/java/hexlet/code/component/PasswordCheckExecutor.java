@@ -0,0 +1,52 @@
+package hexlet.code.component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for password hashing, kept apart from the servlet workers so a burst of logins
+ * cannot occupy them. When the queue is full new checks are rejected instead of waiting.
+ */
+@Component
+public class PasswordCheckExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordCheckExecutor(@Value("${auth.password-check.threads:2}") final int threads,
+                                 @Value("${auth.password-check.queue-capacity:100}") final int queueCapacity,
+                                 final MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-check-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordCheck", List.of());
+    }
+
+    /**
+     * Schedules a password check.
+     *
+     * @param check the check to run
+     * @param <T> result type
+     * @return future completed on the password check pool
+     * @throws java.util.concurrent.RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> supply(final Supplier<T> check) {
+        return CompletableFuture.supplyAsync(check, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,113 @@
+package hexlet.code.component;
+
+import hexlet.code.exception.PreconditionFailedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Computes ETag and Last-Modified validators straight from the version and updated_at columns,
+ * so that conditional requests are answered without loading or serializing entities.
+ * A validator covers every row whose data appears in the representation, e.g. a task's labels.
+ * Collections are validated by the change counters of their tables instead of aggregating the tables.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResourceValidators {
+
+    public static final String USERS = "users";
+    public static final String LABELS = "labels";
+    public static final String TASK_STATUSES = "task_statuses";
+
+    private static final String TASK = """
+            select t.version, t.updated_at, s.version, s.updated_at, a.version, a.updated_at,
+            e.version, e.updated_at, count(l.id), coalesce(sum(l.version), 0), max(l.updated_at)
+            from tasks t
+            join task_statuses s on s.id = t.task_status_id
+            join users a on a.id = t.author_id
+            left join users e on e.id = t.executor_id
+            left join tasks_labels tl on tl.task_id = t.id
+            left join labels l on l.id = tl.labels_id
+            where t.id = ?
+            group by t.version, t.updated_at, s.version, s.updated_at, a.version, a.updated_at,
+            e.version, e.updated_at
+            """;
+    // task changes, those of their labels included, are counted by the change log sequence
+    private static final String TASKS = """
+            select t.seq, t.updated_at, s.version, s.updated_at, u.version, u.updated_at, l.version, l.updated_at
+            from task_change_counter t, change_counters s, change_counters u, change_counters l
+            where t.id = 1 and s.name = 'task_statuses' and u.name = 'users' and l.name = 'labels'
+            """;
+    private static final String ENTITIES = "select version, updated_at from change_counters where name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Validator(String etag, long lastModified) {
+
+        public boolean matches(String ifMatch) {
+            return Arrays.stream(ifMatch.split(","))
+                    .map(String::trim)
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+        }
+    }
+
+    public Optional<Validator> task(long id) {
+        return jdbcTemplate.query(TASK, this::validator, id).stream().findFirst();
+    }
+
+    public Optional<Validator> entity(String table, long id) {
+        return jdbcTemplate.query("select version, updated_at from " + table + " where id = ?", this::validator, id)
+                .stream()
+                .findFirst();
+    }
+
+    public Validator tasks(Long currentUserId) {
+        Validator validator = jdbcTemplate.queryForObject(TASKS, this::validator);
+        if (currentUserId == null) {
+            return validator;
+        }
+        // the caller's own tasks are a different list for every caller
+        return new Validator("\"" + currentUserId + "-" + validator.etag().substring(1), validator.lastModified());
+    }
+
+    public Validator entities(String table) {
+        return jdbcTemplate.queryForObject(ENTITIES, this::validator, table);
+    }
+
+    public boolean checkNotModified(WebRequest request, Optional<Validator> validator) {
+        return validator.map(v -> checkNotModified(request, v)).orElse(false);
+    }
+
+    public boolean checkNotModified(WebRequest request, Validator validator) {
+        return request.checkNotModified(validator.etag(), validator.lastModified());
+    }
+
+    public void checkIfMatch(String ifMatch, Optional<Validator> validator) {
+        if (ifMatch != null && !validator.map(v -> v.matches(ifMatch)).orElse(false)) {
+            throw new PreconditionFailedException("The resource has been modified");
+        }
+    }
+
+    private Validator validator(ResultSet resultSet, int rowNumber) throws SQLException {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        long lastModified = 0;
+        for (int column = 1; column <= resultSet.getMetaData().getColumnCount(); column++) {
+            Object value = resultSet.getObject(column);
+            if (value instanceof Timestamp timestamp) {
+                lastModified = Math.max(lastModified, timestamp.getTime());
+                etag.add(Long.toString(timestamp.getTime()));
+            } else {
+                etag.add(value == null ? "" : value.toString());
+            }
+        }
+        return new Validator(etag.toString(), lastModified);
+    }
+}
@@ -0,0 +1,99 @@
+package hexlet.code.component;
+
+import hexlet.code.model.Label;
+import hexlet.code.model.Task;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Inserts tasks and their label links with JDBC batches, bypassing the persistence context.
+ * Must run inside a transaction, which is shared with the JPA one.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskBatchWriter {
+
+    private static final String INSERT_TASK = "insert into tasks"
+            + " (id, version, created_at, updated_at, name, description, task_status_id, author_id, executor_id)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TASK_LABEL = "insert into tasks_labels (task_id, labels_id) values (?, ?)";
+    private static final int ID = 1;
+    private static final int VERSION = 2;
+    private static final int CREATED_AT = 3;
+    private static final int UPDATED_AT = 4;
+    private static final int NAME = 5;
+    private static final int DESCRIPTION = 6;
+    private static final int TASK_STATUS_ID = 7;
+    private static final int AUTHOR_ID = 8;
+    private static final int EXECUTOR_ID = 9;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    @Value("${tasks.batch.size:1000}")
+    private int batchSize;
+
+    public void insert(List<Task> tasks) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = session.getFactory().getMetamodel()
+                .entityPersister(Task.class)
+                .getIdentifierGenerator();
+        Date createdAt = new Date();
+        for (Task task : tasks) {
+            task.setId((Long) idGenerator.generate(session, task));
+            task.setVersion(0);
+            task.setCreatedAt(createdAt);
+            task.setUpdatedAt(createdAt);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_TASK, tasks, batchSize, (statement, task) -> {
+            statement.setLong(ID, task.getId());
+            statement.setLong(VERSION, task.getVersion());
+            statement.setTimestamp(CREATED_AT, new Timestamp(createdAt.getTime()));
+            statement.setTimestamp(UPDATED_AT, new Timestamp(createdAt.getTime()));
+            statement.setString(NAME, task.getName());
+            statement.setString(DESCRIPTION, task.getDescription());
+            statement.setLong(TASK_STATUS_ID, task.getTaskStatus().getId());
+            statement.setLong(AUTHOR_ID, task.getAuthor().getId());
+            if (task.getExecutor() == null) {
+                statement.setNull(EXECUTOR_ID, Types.BIGINT);
+            } else {
+                statement.setLong(EXECUTOR_ID, task.getExecutor().getId());
+            }
+        });
+
+        List<long[]> taskLabels = new ArrayList<>();
+        for (Task task : tasks) {
+            for (Label label : task.getLabels()) {
+                taskLabels.add(new long[]{task.getId(), label.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_TASK_LABEL, taskLabels, batchSize, (statement, row) -> {
+            statement.setLong(1, row[0]);
+            statement.setLong(2, row[1]);
+        });
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                session.getFactory().getCache().evictQueryRegions();
+            }
+        });
+    }
+}
@@ -0,0 +1,357 @@
+package hexlet.code.component;
+
+import hexlet.code.dto.ChangeCursor;
+import hexlet.code.dto.TaskFacets;
+import hexlet.code.dto.TaskFilter;
+import hexlet.code.event.TaskEvent;
+import hexlet.code.model.BaseEntity;
+import hexlet.code.model.Task;
+import hexlet.code.repository.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static hexlet.code.event.ChangeType.DELETED;
+
+/**
+ * Compressed bitmaps of task ids per task status, executor, author and label.
+ * Filters become bitmap intersections and facet counts become intersection cardinalities.
+ * <p>
+ * The index is updated after commit, by the instance that made the change, and catches up with
+ * {@link TaskChangeLog} in the background, so it may miss recent changes. It records the change log sequence
+ * number it holds everything up to, and callers take tasks changed after it from the database instead.
+ * Task ids beyond the int range do not fit into the bitmaps, once one shows up the index is not complete
+ * until it is rebuilt without one.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "tasks.bitmap-index.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class TaskBitmapIndex {
+
+    private static final long[] NO_LABELS = new long[0];
+    private static final String REFERENCE_IDS =
+            "select id, task_status_id, executor_id, author_id from tasks where id in (:ids)";
+    private static final String LABEL_IDS = "select task_id, labels_id from tasks_labels where task_id in (:ids)";
+    private static final int CATCH_UP_CHUNK = 1000;
+    private static final int ID = 1;
+    private static final int TASK_STATUS_ID = 2;
+    private static final int EXECUTOR_ID = 3;
+    private static final int AUTHOR_ID = 4;
+    private static final int LABEL_ID = 2;
+
+    private final Map<Long, RoaringBitmap> byTaskStatus = new HashMap<>();
+    private final Map<Long, RoaringBitmap> byExecutor = new HashMap<>();
+    private final Map<Long, RoaringBitmap> byAuthor = new HashMap<>();
+    private final Map<Long, RoaringBitmap> byLabel = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService catchUpExecutor =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("bitmap-index-"));
+
+    private final TaskRepository taskRepository;
+    private final TaskChangeLog taskChangeLog;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${tasks.bitmap-index.catch-up-ms:1000}")
+    private long catchUpMs;
+
+    private volatile long indexedSeq;
+    private volatile boolean built;
+    private volatile boolean oversized;
+
+    private record Entry(Long taskStatus, Long executor, Long author, long[] labels) {
+    }
+
+    @PostConstruct
+    public void start() {
+        catchUpExecutor.scheduleWithFixedDelay(this::poll, catchUpMs, catchUpMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        catchUpExecutor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        final long seq = taskChangeLog.currentSeq();
+        clear();
+        Map<Long, List<Long>> labels = new HashMap<>();
+        try (Stream<Object[]> rows = taskRepository.streamLabelIds()) {
+            rows.forEach(row -> labels.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]));
+        }
+        try (Stream<TaskRepository.ReferenceIds> rows = taskRepository.streamReferenceIds()) {
+            rows.forEach(row -> put(row.getId(), row.getTaskStatusId(), row.getExecutorId(), row.getAuthorId(),
+                    labels.getOrDefault(row.getId(), List.of()).stream().mapToLong(Long::longValue).toArray()));
+        }
+        indexedSeq = seq;
+        built = true;
+    }
+
+    /**
+     * Indexes the tasks changed after the change log sequence number the index holds, and moves it forward.
+     */
+    public synchronized void catchUp() {
+        if (!built) {
+            return;
+        }
+        long seq = indexedSeq;
+        ChangeCursor cursor = new ChangeCursor(seq, Long.MAX_VALUE);
+        Set<Long> changed = new HashSet<>();
+        List<TaskChangeLog.Change> changes;
+        do {
+            changes = taskChangeLog.changesAfter(cursor, CATCH_UP_CHUNK);
+            for (TaskChangeLog.Change change : changes) {
+                if (change.deleted()) {
+                    remove(change.taskId());
+                } else {
+                    changed.add(change.taskId());
+                }
+                seq = change.seq();
+                cursor = new ChangeCursor(change.seq(), change.taskId());
+            }
+        } while (changes.size() == CATCH_UP_CHUNK);
+
+        List<Long> ids = List.copyOf(changed);
+        for (int from = 0; from < ids.size(); from += CATCH_UP_CHUNK) {
+            reindex(ids.subList(from, Math.min(from + CATCH_UP_CHUNK, ids.size())));
+        }
+        indexedSeq = seq;
+    }
+
+    /**
+     * Whether the index has been built and holds every task id.
+     *
+     * @return false when queries must not be answered from the index
+     */
+    public boolean isComplete() {
+        return built && !oversized;
+    }
+
+    /**
+     * Tasks whose latest change may be missing from the index, deleted ones included.
+     *
+     * @return ids of the tasks changed after the change log sequence number the index holds
+     */
+    public List<Long> changedSinceIndexed() {
+        return taskChangeLog.taskIdsChangedAfter(indexedSeq);
+    }
+
+    public static boolean fits(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    @TransactionalEventListener
+    public void onTaskEvent(TaskEvent event) {
+        if (event.type() == DELETED) {
+            remove(event.taskId());
+            return;
+        }
+        Task task = event.task();
+        long[] labels = Hibernate.isInitialized(task.getLabels())
+                ? task.getLabels().stream().mapToLong(BaseEntity::getId).toArray()
+                : null;
+        put(task.getId(), idOf(task.getTaskStatus()), idOf(task.getExecutor()), idOf(task.getAuthor()), labels);
+    }
+
+    /**
+     * Indexes a task, replacing whatever was indexed for it before.
+     *
+     * @param id task id
+     * @param taskStatus task status id, may be null
+     * @param executor executor id, may be null
+     * @param author author id, may be null
+     * @param labels label ids, or null to keep the labels indexed before
+     */
+    public void put(long id, Long taskStatus, Long executor, Long author, long[] labels) {
+        if (!fits(id)) {
+            oversized = true;
+            return;
+        }
+        int key = (int) id;
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            long[] indexedLabels = labels != null ? labels : previous != null ? previous.labels() : NO_LABELS;
+            Entry entry = new Entry(taskStatus, executor, author, indexedLabels);
+            add(byTaskStatus, entry.taskStatus(), key);
+            add(byExecutor, entry.executor(), key);
+            add(byAuthor, entry.author(), key);
+            for (long label : indexedLabels) {
+                add(byLabel, label, key);
+            }
+            all.add(key);
+            entries.put(key, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        if (!fits(id)) {
+            return;
+        }
+        int key = (int) id;
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public RoaringBitmap match(TaskFilter filter, Long currentUserId) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> required = new ArrayList<>();
+            required.add(all);
+            if (filter.taskStatus() != null) {
+                required.add(byTaskStatus.get(filter.taskStatus()));
+            }
+            if (filter.executorId() != null) {
+                required.add(byExecutor.get(filter.executorId()));
+            }
+            if (filter.authorId() != null) {
+                required.add(byAuthor.get(filter.authorId()));
+            }
+            if (filter.isMyTasks()) {
+                required.add(byAuthor.get(currentUserId));
+            }
+            if (!filter.labels().isEmpty()) {
+                required.add(FastAggregation.or(filter.labels().stream()
+                        .map(byLabel::get)
+                        .filter(bitmap -> bitmap != null)
+                        .iterator()));
+            }
+            if (required.contains(null)) {
+                return new RoaringBitmap();
+            }
+            return required.size() == 1 ? all.clone() : FastAggregation.and(required.iterator());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public TaskFacets facets(RoaringBitmap tasks) {
+        lock.readLock().lock();
+        try {
+            return new TaskFacets(count(byTaskStatus, tasks), count(byExecutor, tasks),
+                    count(byAuthor, tasks), count(byLabel, tasks));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            Stream.of(byTaskStatus, byExecutor, byAuthor, byLabel, entries).forEach(Map::clear);
+            all.clear();
+            oversized = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void poll() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            log.warn("Bitmap index catch-up failed, retrying on the next poll", e);
+        }
+    }
+
+    private void reindex(List<Long> ids) {
+        Map<Long, List<Long>> labels = new HashMap<>();
+        jdbcTemplate.query(LABEL_IDS, Map.of("ids", ids), (RowCallbackHandler) row -> labels
+                .computeIfAbsent(row.getLong(ID), id -> new ArrayList<>())
+                .add(row.getLong(LABEL_ID)));
+        Set<Long> found = new HashSet<>();
+        jdbcTemplate.query(REFERENCE_IDS, Map.of("ids", ids), (RowCallbackHandler) row -> {
+            long id = row.getLong(ID);
+            found.add(id);
+            put(id, row.getObject(TASK_STATUS_ID, Long.class), row.getObject(EXECUTOR_ID, Long.class),
+                    row.getObject(AUTHOR_ID, Long.class),
+                    labels.getOrDefault(id, List.of()).stream().mapToLong(Long::longValue).toArray());
+        });
+        ids.stream().filter(id -> !found.contains(id)).forEach(this::remove);
+    }
+
+    private void unindex(int key, Entry entry) {
+        discard(byTaskStatus, entry.taskStatus(), key);
+        discard(byExecutor, entry.executor(), key);
+        discard(byAuthor, entry.author(), key);
+        for (long label : entry.labels()) {
+            discard(byLabel, label, key);
+        }
+        all.remove(key);
+    }
+
+    private static void add(Map<Long, RoaringBitmap> bitmaps, Long value, int key) {
+        if (value != null) {
+            bitmaps.computeIfAbsent(value, v -> new RoaringBitmap()).add(key);
+        }
+    }
+
+    private static void discard(Map<Long, RoaringBitmap> bitmaps, Long value, int key) {
+        RoaringBitmap bitmap = value == null ? null : bitmaps.get(value);
+        if (bitmap != null) {
+            bitmap.remove(key);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(value);
+            }
+        }
+    }
+
+    private static Map<Long, Long> count(Map<Long, RoaringBitmap> bitmaps, RoaringBitmap tasks) {
+        Map<Long, Long> counts = new TreeMap<>();
+        bitmaps.forEach((value, bitmap) -> {
+            long count = RoaringBitmap.andCardinality(bitmap, tasks);
+            if (count > 0) {
+                counts.put(value, count);
+            }
+        });
+        return counts;
+    }
+
+    private static Long idOf(BaseEntity entity) {
+        return entity == null ? null : entity.getId();
+    }
+}
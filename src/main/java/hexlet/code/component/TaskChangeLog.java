@@ -0,0 +1,127 @@
+package hexlet.code.component;
+
+import hexlet.code.dto.ChangeCursor;
+import hexlet.code.event.TaskBulkEvent;
+import hexlet.code.event.TaskEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static hexlet.code.event.ChangeType.DELETED;
+
+/**
+ * Records the latest change of every task, deletions included, in the transaction that made it.
+ * All changes of a transaction share one sequence number, taken from a counter row whose lock is held
+ * until commit, so sequence numbers are committed in order and a sync cursor never skips a change.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskChangeLog {
+
+    private static final String NEXT_SEQ =
+            "update task_change_counter set seq = seq + 1, updated_at = current_timestamp where id = 1";
+    private static final String CURRENT_SEQ = "select seq from task_change_counter where id = 1";
+    private static final String DELETE_CHANGE = "delete from task_changes where task_id = ?";
+    private static final String INSERT_CHANGE = "insert into task_changes (task_id, seq, deleted) values (?, ?, ?)";
+    private static final String TASKS_CHANGED_AFTER = "select task_id from task_changes where seq > ?";
+    private static final String CHANGES_AFTER = """
+            select task_id, seq, deleted from task_changes
+            where seq > ? or (seq = ? and task_id > ?)
+            order by seq, task_id
+            """;
+    private static final int TASK_ID = 1;
+    private static final int SEQ = 2;
+    private static final int DELETED_FLAG = 3;
+    private static final int AFTER_SEQ = 1;
+    private static final int AT_SEQ = 2;
+    private static final int AFTER_TASK_ID = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${tasks.batch.size:1000}")
+    private int batchSize;
+
+    public record Change(long taskId, long seq, boolean deleted) {
+    }
+
+    @EventListener
+    public void onTaskEvent(TaskEvent event) {
+        record(Map.of(event.taskId(), event.type() == DELETED));
+    }
+
+    @EventListener
+    public void onTaskBulkEvent(TaskBulkEvent event) {
+        final Map<Long, Boolean> changes = new LinkedHashMap<>();
+        event.taskIds().forEach(taskId -> changes.put(taskId, false));
+        record(changes);
+    }
+
+    private void record(Map<Long, Boolean> taskChanges) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(taskChanges);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Long, Boolean> pending = (Map<Long, Boolean>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            final Map<Long, Boolean> changes = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(TaskChangeLog.this);
+                }
+            });
+            pending = changes;
+        }
+        pending.putAll(taskChanges);
+    }
+
+    public List<Change> changesAfter(ChangeCursor cursor, int limit) {
+        return jdbcTemplate.query(connection -> {
+            final var statement = connection.prepareStatement(CHANGES_AFTER);
+            statement.setLong(AFTER_SEQ, cursor.seq());
+            statement.setLong(AT_SEQ, cursor.seq());
+            statement.setLong(AFTER_TASK_ID, cursor.taskId());
+            statement.setMaxRows(limit);
+            return statement;
+        }, (resultSet, rowNumber) -> new Change(
+                resultSet.getLong(TASK_ID), resultSet.getLong(SEQ), resultSet.getBoolean(DELETED_FLAG)));
+    }
+
+    public long currentSeq() {
+        return jdbcTemplate.queryForObject(CURRENT_SEQ, Long.class);
+    }
+
+    // tasks whose latest change, deletion included, came after the given sequence number
+    public List<Long> taskIdsChangedAfter(long seq) {
+        return jdbcTemplate.queryForList(TASKS_CHANGED_AFTER, Long.class, seq);
+    }
+
+    private void write(Map<Long, Boolean> changes) {
+        jdbcTemplate.update(NEXT_SEQ);
+        final long seq = jdbcTemplate.queryForObject(CURRENT_SEQ, Long.class);
+        final List<Map.Entry<Long, Boolean>> rows = new ArrayList<>(changes.entrySet());
+        jdbcTemplate.batchUpdate(DELETE_CHANGE, rows, batchSize,
+                (statement, row) -> statement.setLong(1, row.getKey()));
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, rows, batchSize, (statement, row) -> {
+            statement.setLong(TASK_ID, row.getKey());
+            statement.setLong(SEQ, seq);
+            statement.setBoolean(DELETED_FLAG, row.getValue());
+        });
+    }
+}
@@ -0,0 +1,309 @@
+package hexlet.code.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hexlet.code.event.TaskBulkEvent;
+import hexlet.code.event.TaskEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static hexlet.code.event.ChangeType.DELETED;
+
+/**
+ * Pushes committed task events to SSE subscribers. Every subscriber has a bounded buffer drained by a small
+ * shared pool, so idle connections hold no thread and a slow one is dropped instead of slowing the others.
+ * Recent events are kept to let a reconnecting client resume from its Last-Event-ID.
+ * A write that has not finished after the write timeout marks its subscriber stalled: it is dropped and its
+ * sender thread is written off, another thread takes its place until the blocked write returns, which the
+ * container's connection timeout bounds. Emitters are completed only by the thread writing to them, since
+ * completing one waits for a write in progress.
+ * Event ids are a sequence number prefixed with a random epoch of this process, {@code <epoch>-<seq>},
+ * so an id from before a restart or from another instance is told apart and answered with a reset.
+ */
+@Component
+public class TaskEventFeed {
+
+    public static final String RESET = "reset";
+    public static final String BULK_UPDATED = "bulk_updated";
+
+    private static final FeedEvent HEARTBEAT = new FeedEvent(0, null, null);
+    private static final char EPOCH_SEPARATOR = '-';
+
+    private final ObjectMapper objectMapper;
+    private final int historySize;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService timer;
+    private final Counter stalledSubscribers;
+    private final Map<Subscriber, Long> writing = new ConcurrentHashMap<>();
+    private final Deque<FeedEvent> history = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private long lastId;
+
+    @Value("${tasks.events.write-timeout-ms:10000}")
+    private long writeTimeoutMs;
+
+    public TaskEventFeed(final ObjectMapper objectMapper,
+                         final MeterRegistry meterRegistry,
+                         @Value("${tasks.events.history-size:1000}") final int historySize,
+                         @Value("${tasks.events.buffer-size:256}") final int bufferSize,
+                         @Value("${tasks.events.senders:2}") final int senders,
+                         @Value("${tasks.events.timeout-ms:1800000}") final long timeoutMs,
+                         @Value("${tasks.events.heartbeat-ms:15000}") final long heartbeatMs) {
+        this.objectMapper = objectMapper;
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.senders = new ThreadPoolExecutor(senders, senders, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("task-events-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("task-events-timer-"));
+        this.timer.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        this.stalledSubscribers = meterRegistry.counter("tasks.events.stalled");
+        ExecutorServiceMetrics.monitor(meterRegistry, this.senders, "taskEvents", List.of());
+        meterRegistry.gaugeCollectionSize("tasks.events.subscribers", List.of(), subscribers);
+    }
+
+    /**
+     * Opens a subscription.
+     *
+     * @param lastEventId id of the last event the client has seen, or null to receive only new events
+     * @return emitter receiving the missed events, if any, followed by the new ones
+     */
+    public SseEmitter subscribe(final String lastEventId) {
+        final Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs));
+        subscriber.emitter.onCompletion(subscriber::discard);
+        subscriber.emitter.onTimeout(subscriber::discard);
+        subscriber.emitter.onError(error -> subscriber.discard());
+
+        final Long lastSeenId = lastEventId == null ? null : idOf(lastEventId);
+        synchronized (history) {
+            if (lastEventId != null && (lastSeenId == null || lastSeenId != lastId)) {
+                final long oldestId = history.isEmpty() ? lastId + 1 : history.getFirst().id();
+                if (lastSeenId == null || lastSeenId > lastId || lastSeenId + 1 < oldestId
+                        || lastId - lastSeenId > bufferSize) {
+                    // the missed events are gone or too many, the client has to reload the tasks
+                    subscriber.offer(new FeedEvent(lastId, RESET, "{}"));
+                } else {
+                    history.stream()
+                            .filter(event -> event.id() > lastSeenId)
+                            .forEach(subscriber::offer);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener
+    public void onTaskEvent(TaskEvent event) {
+        publish(event.type().name().toLowerCase(),
+                serialize(event.type() == DELETED ? Map.of("id", event.taskId()) : event.task()));
+    }
+
+    @TransactionalEventListener
+    public void onTaskBulkEvent(TaskBulkEvent event) {
+        publish(BULK_UPDATED, serialize(Map.of("ids", event.taskIds())));
+    }
+
+    private void publish(final String name, final String data) {
+        synchronized (history) {
+            final FeedEvent feedEvent = new FeedEvent(++lastId, name, data);
+            history.addLast(feedEvent);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            subscribers.forEach(subscriber -> subscriber.offer(feedEvent));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        timer.scheduleWithFixedDelay(this::dropStalled, writeTimeoutMs, writeTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        senders.shutdownNow();
+        subscribers.stream()
+                .filter(subscriber -> !writing.containsKey(subscriber))
+                .forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // keeps idle connections open through proxies and finds the clients that went away
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    private void dropStalled() {
+        final long now = System.nanoTime();
+        writing.forEach((subscriber, startedAt) -> {
+            if (now - startedAt > TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs)) {
+                subscriber.stall(startedAt);
+            }
+        });
+    }
+
+    // keeps the number of senders that are not stuck in a write constant
+    private void resizeSenders(final int delta) {
+        synchronized (senders) {
+            if (delta > 0) {
+                senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+                senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            } else {
+                senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+                senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    // the sequence number of an id issued by this process, null for any other id
+    private Long idOf(final String eventId) {
+        final int separator = eventId.lastIndexOf(EPOCH_SEPARATOR);
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String serialize(final Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record FeedEvent(long id, String name, String data) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<FeedEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private boolean stalled;
+
+        private Subscriber(final SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(final FeedEvent event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // too slow to keep up, it may reconnect and resume from the last event it got
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // a closed subscriber keeps the draining flag, so nothing is sent after its emitter is completed
+        private void drain() {
+            do {
+                for (FeedEvent event = buffer.poll(); event != null && !closed; event = buffer.poll()) {
+                    send(event);
+                }
+                if (closed) {
+                    complete();
+                    return;
+                }
+                draining.set(false);
+            } while ((closed || !buffer.isEmpty()) && draining.compareAndSet(false, true));
+        }
+
+        private void send(final FeedEvent event) {
+            synchronized (this) {
+                writing.put(this, System.nanoTime());
+            }
+            try {
+                if (event == HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment(""));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(epoch + EPOCH_SEPARATOR + event.id())
+                            .name(event.name())
+                            .data(event.data()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                discard();
+            } finally {
+                synchronized (this) {
+                    writing.remove(this);
+                    if (stalled) {
+                        stalled = false;
+                        resizeSenders(-1);
+                    }
+                }
+            }
+        }
+
+        // called by the timer for a write that started at the given time and has not finished
+        private synchronized void stall(final long startedAt) {
+            if (stalled || !Long.valueOf(startedAt).equals(writing.get(this))) {
+                return;
+            }
+            stalled = true;
+            discard();
+            resizeSenders(1);
+            stalledSubscribers.increment();
+        }
+
+        private void close() {
+            discard();
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void discard() {
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // already completed by the container
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package hexlet.code.component;
+
+import hexlet.code.dto.TaskFilter;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class TaskFilterArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(final MethodParameter parameter) {
+        return TaskFilter.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public TaskFilter resolveArgument(final MethodParameter parameter,
+                                      final ModelAndViewContainer mavContainer,
+                                      final NativeWebRequest webRequest,
+                                      final WebDataBinderFactory binderFactory) {
+        return TaskFilter.fromParameters(webRequest.getParameterMap());
+    }
+}
@@ -0,0 +1,204 @@
+package hexlet.code.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hexlet.code.dto.TaskBulkUpdateDto;
+import hexlet.code.dto.TaskFieldChange;
+import hexlet.code.dto.TaskHistoryEntry;
+import hexlet.code.event.ChangeType;
+import hexlet.code.event.OutboxConsumer;
+import hexlet.code.event.OutboxEvent;
+import hexlet.code.event.TaskEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Append-only history of task changes. Every change is stored as a compact snapshot of the audited fields,
+ * the read side compares consecutive snapshots to tell which fields changed.
+ * Rows are written off the request path from the outbox, one group commit per dispatched batch, so history
+ * survives a crash: undelivered changes stay in the outbox and redelivered ones are skipped by their sequence.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskHistory implements OutboxConsumer {
+
+    private static final String LATEST_ENTRIES = """
+            select task_id, seq, name, description, task_status_id, executor_id, label_ids from task_history h
+            where task_id in (:taskIds) and seq = (select max(seq) from task_history where task_id = h.task_id)
+            """;
+    private static final String INSERT_ENTRY = """
+            insert into task_history
+            (task_id, seq, change_type, changed_at, name, description, task_status_id, executor_id, label_ids)
+            values (:taskId, :seq, :changeType, :changedAt, :name, :description, :taskStatusId, :executorId, :labelIds)
+            """;
+    private static final String SELECT_ENTRIES = """
+            select seq, change_type, changed_at, name, description, task_status_id, executor_id, label_ids
+            from task_history where task_id = :taskId order by seq
+            """;
+    private static final List<String> FIELDS = List.of("name", "description", "taskStatusId", "executorId",
+            "labelIds");
+    private static final String OPERATION = "operation";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void accept(List<OutboxEvent> events) {
+        final List<OutboxEvent> taskEvents = events.stream()
+                .filter(event -> TaskEvent.AGGREGATE_TYPE.equals(event.aggregateType()))
+                .toList();
+        if (taskEvents.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> append(taskEvents));
+    }
+
+    public List<TaskHistoryEntry> getHistory(long taskId) {
+        final List<TaskHistoryEntry> entries = new ArrayList<>();
+        final Map<String, Object> previous = new HashMap<>();
+        jdbcTemplate.query(SELECT_ENTRIES, Map.of("taskId", taskId), resultSet -> {
+            final Map<String, Object> current = snapshot(resultSet);
+            final List<TaskFieldChange> changes = FIELDS.stream()
+                    .filter(field -> !Objects.equals(previous.get(field), current.get(field)))
+                    .map(field -> new TaskFieldChange(field, previous.get(field), current.get(field)))
+                    .toList();
+            entries.add(new TaskHistoryEntry(
+                    resultSet.getLong("seq"),
+                    resultSet.getTimestamp("changed_at"),
+                    ChangeType.valueOf(resultSet.getString("change_type")),
+                    changes));
+            previous.putAll(current);
+        });
+        return entries;
+    }
+
+    private void append(List<OutboxEvent> events) {
+        final Map<Long, Long> latestSeqs = new HashMap<>();
+        final Map<Long, Map<String, Object>> snapshots = new HashMap<>();
+        jdbcTemplate.query(LATEST_ENTRIES,
+                Map.of("taskIds", events.stream().map(OutboxEvent::aggregateId).distinct().toList()),
+                resultSet -> {
+                    latestSeqs.put(resultSet.getLong("task_id"), resultSet.getLong("seq"));
+                    snapshots.put(resultSet.getLong("task_id"), snapshot(resultSet));
+                });
+
+        // changes of one task arrive in order, so anything not newer than what is stored is a redelivery;
+        // a bulk update carries only the operation and is applied to the task's previous snapshot
+        final List<SqlParameterSource> rows = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            if (event.id() <= latestSeqs.getOrDefault(event.aggregateId(), 0L)) {
+                continue;
+            }
+            final JsonNode payload = readTree(event.payload());
+            final Map<String, Object> snapshot = payload.has(OPERATION)
+                    ? bulkUpdated(snapshots.get(event.aggregateId()), payload)
+                    : snapshot(payload);
+            if (snapshot != null) {
+                snapshots.put(event.aggregateId(), snapshot);
+                rows.add(row(event, snapshot));
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows.toArray(SqlParameterSource[]::new));
+    }
+
+    private SqlParameterSource row(OutboxEvent event, Map<String, Object> snapshot) {
+        return new MapSqlParameterSource()
+                .addValue("taskId", event.aggregateId())
+                .addValue("seq", event.id())
+                .addValue("changeType", event.type().name())
+                .addValue("changedAt", new Timestamp(event.createdAt().getTime()), Types.TIMESTAMP)
+                .addValue("name", snapshot.get("name"), Types.VARCHAR)
+                .addValue("description", snapshot.get("description"), Types.VARCHAR)
+                .addValue("taskStatusId", snapshot.get("taskStatusId"), Types.BIGINT)
+                .addValue("executorId", snapshot.get("executorId"), Types.BIGINT)
+                .addValue("labelIds", labelIds(snapshot).stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(",")), Types.VARCHAR);
+    }
+
+    private static Map<String, Object> snapshot(ResultSet resultSet) throws SQLException {
+        final Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("name", resultSet.getString("name"));
+        snapshot.put("description", resultSet.getString("description"));
+        snapshot.put("taskStatusId", resultSet.getObject("task_status_id", Long.class));
+        snapshot.put("executorId", resultSet.getObject("executor_id", Long.class));
+        snapshot.put("labelIds", parseIds(resultSet.getString("label_ids")));
+        return snapshot;
+    }
+
+    private Map<String, Object> snapshot(JsonNode task) {
+        final Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("name", task.path("name").textValue());
+        snapshot.put("description", task.path("description").textValue());
+        snapshot.put("taskStatusId", idOf(task.path("taskStatus")));
+        snapshot.put("executorId", idOf(task.path("executor")));
+        snapshot.put("labelIds", StreamSupport.stream(task.path("labels").spliterator(), false)
+                .map(this::idOf)
+                .sorted()
+                .toList());
+        return snapshot;
+    }
+
+    // null when the task has no snapshot to apply the update to, as for tasks older than the history
+    private static Map<String, Object> bulkUpdated(Map<String, Object> previous, JsonNode update) {
+        if (previous == null) {
+            return null;
+        }
+        final Map<String, Object> snapshot = new HashMap<>(previous);
+        final Set<Long> labelIds = new TreeSet<>(labelIds(previous));
+        final List<Long> updateLabelIds = StreamSupport.stream(update.path("labelIds").spliterator(), false)
+                .map(JsonNode::longValue)
+                .toList();
+        switch (TaskBulkUpdateDto.Operation.valueOf(update.get(OPERATION).textValue())) {
+            case SET_STATUS -> snapshot.put("taskStatusId", update.get("taskStatusId").longValue());
+            case SET_EXECUTOR -> snapshot.put("executorId", update.get("executorId").longValue());
+            case ADD_LABELS -> labelIds.addAll(updateLabelIds);
+            default -> labelIds.removeAll(updateLabelIds);
+        }
+        snapshot.put("labelIds", List.copyOf(labelIds));
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> labelIds(Map<String, Object> snapshot) {
+        return (List<Long>) snapshot.get("labelIds");
+    }
+
+    private Long idOf(JsonNode entity) {
+        return entity.hasNonNull("id") ? entity.get("id").longValue() : null;
+    }
+
+    private static List<Long> parseIds(String ids) {
+        return ids == null || ids.isEmpty() ? List.of() : Arrays.stream(ids.split(",")).map(Long::valueOf).toList();
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
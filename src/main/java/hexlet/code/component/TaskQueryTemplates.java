@@ -0,0 +1,225 @@
+package hexlet.code.component;
+
+import hexlet.code.dto.TaskCursor;
+import hexlet.code.dto.TaskFilter;
+import hexlet.code.model.Task;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static hexlet.code.dto.TaskFacets.FACET_AUTHOR;
+import static hexlet.code.dto.TaskFacets.FACET_EXECUTOR;
+import static hexlet.code.dto.TaskFacets.FACET_LABEL;
+import static hexlet.code.dto.TaskFacets.FACET_TASK_STATUS;
+
+/**
+ * Renders the JPQL for every filter shape (the set of predicates present) once and reuses it,
+ * so repeated requests only bind parameters and hit Hibernate's query plan cache.
+ */
+@Component
+public class TaskQueryTemplates {
+
+    private static final String FETCH_REFERENCES = " left join fetch t.taskStatus"
+            + " left join fetch t.author"
+            + " left join fetch t.executor";
+
+    private static final int TASK_STATUS = 1;
+    private static final int EXECUTOR = 2;
+    private static final int AUTHOR = 4;
+    private static final int LABELS = 8;
+    private static final int CURRENT_USER = 16;
+    private static final int CURSOR = 32;
+    private static final int IDS = 64;
+    private static final int SHAPE_BITS = 7;
+
+    // the first column tags a row with its facet, the last argument is the where clause
+    private static final String FACETS = """
+            with filtered as (select t.id, t.task_status_id, t.executor_id, t.author_id from tasks t%5$s)
+            select %1$d, task_status_id, count(*) from filtered group by task_status_id
+            union all select %2$d, executor_id, count(*) from filtered group by executor_id
+            union all select %3$d, author_id, count(*) from filtered group by author_id
+            union all select %4$d, tl.labels_id, count(*) from filtered f
+                join tasks_labels tl on tl.task_id = f.id group by tl.labels_id
+            """;
+
+    // one row per task and label, counted by the caller when the matches are too many to bind
+    private static final String FACET_ROWS = "select t.id, t.task_status_id, t.executor_id, t.author_id, tl.labels_id"
+            + " from tasks t left join tasks_labels tl on tl.task_id = t.id%s order by t.id";
+
+    private final Map<Integer, String> templates = new ConcurrentHashMap<>();
+    private final Map<Integer, String> facetTemplates = new ConcurrentHashMap<>();
+    private final Map<Integer, String> facetRowTemplates = new ConcurrentHashMap<>();
+
+    public enum Kind {
+        LIST("select distinct t from Task t" + FETCH_REFERENCES + " left join fetch t.labels", ""),
+        PAGE("select t from Task t" + FETCH_REFERENCES, " order by t.createdAt, t.id"),
+        STREAM("select t from Task t" + FETCH_REFERENCES + " left join fetch t.labels", " order by t.id"),
+        IDS("select t.id from Task t", " order by t.id");
+
+        private final String select;
+        private final String orderBy;
+
+        Kind(String select, String orderBy) {
+            this.select = select;
+            this.orderBy = orderBy;
+        }
+    }
+
+    public TypedQuery<Task> createQuery(final EntityManager entityManager,
+                                        final Kind kind,
+                                        final TaskFilter filter,
+                                        final Long currentUserId,
+                                        final TaskCursor after,
+                                        final Collection<Long> ids) {
+        final TypedQuery<Task> query = entityManager.createQuery(jpql(kind, filter, after, ids), Task.class);
+        bind(query, filter, currentUserId, after, ids);
+        return query;
+    }
+
+    public TypedQuery<Long> createIdsQuery(final EntityManager entityManager,
+                                           final TaskFilter filter,
+                                           final Long currentUserId,
+                                           final Collection<Long> ids) {
+        final TypedQuery<Long> query = entityManager.createQuery(jpql(Kind.IDS, filter, null, ids), Long.class);
+        bind(query, filter, currentUserId, null, ids);
+        return query;
+    }
+
+    // select is a sparse fieldset query of FieldProjections, with the task aliased as t
+    public TypedQuery<Tuple> createProjectionQuery(final EntityManager entityManager,
+                                                   final String select,
+                                                   final TaskFilter filter,
+                                                   final Long currentUserId,
+                                                   final Collection<Long> ids) {
+        final String jpql = render(select, " order by t.id", shapeOf(filter, null, ids));
+        final TypedQuery<Tuple> query = entityManager.createQuery(jpql, Tuple.class);
+        bind(query, filter, currentUserId, null, ids);
+        return query;
+    }
+
+    public Query createFacetsQuery(final EntityManager entityManager,
+                                   final TaskFilter filter,
+                                   final Long currentUserId,
+                                   final Collection<Long> ids) {
+        final int shape = shapeOf(filter, null, ids);
+        final String sql = facetTemplates.computeIfAbsent(shape, key -> FACETS.formatted(
+                FACET_TASK_STATUS, FACET_EXECUTOR, FACET_AUTHOR, FACET_LABEL, renderNativeWhere(shape)));
+        final Query query = entityManager.createNativeQuery(sql);
+        bind(query, filter, currentUserId, null, ids);
+        return query;
+    }
+
+    public Query createFacetRowsQuery(final EntityManager entityManager,
+                                      final TaskFilter filter,
+                                      final Long currentUserId) {
+        final int shape = shapeOf(filter, null, null);
+        final String sql = facetRowTemplates.computeIfAbsent(shape,
+                key -> FACET_ROWS.formatted(renderNativeWhere(shape)));
+        final Query query = entityManager.createNativeQuery(sql);
+        bind(query, filter, currentUserId, null, null);
+        return query;
+    }
+
+    private static void bind(final Query query,
+                             final TaskFilter filter,
+                             final Long currentUserId,
+                             final TaskCursor after,
+                             final Collection<Long> ids) {
+        if (filter.taskStatus() != null) {
+            query.setParameter("taskStatus", filter.taskStatus());
+        }
+        if (filter.executorId() != null) {
+            query.setParameter("executorId", filter.executorId());
+        }
+        if (filter.authorId() != null) {
+            query.setParameter("authorId", filter.authorId());
+        }
+        if (!filter.labels().isEmpty()) {
+            query.setParameter("labels", filter.labels());
+        }
+        if (filter.isMyTasks()) {
+            query.setParameter("currentUserId", currentUserId);
+        }
+        if (after != null) {
+            query.setParameter("afterCreatedAt", after.createdAt());
+            query.setParameter("afterId", after.id());
+        }
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+    }
+
+    public String jpql(final Kind kind, final TaskFilter filter, final TaskCursor after, final Collection<Long> ids) {
+        final int shape = shapeOf(filter, after, ids);
+        return templates.computeIfAbsent(kind.ordinal() << SHAPE_BITS | shape,
+                key -> render(kind.select, kind.orderBy, shape));
+    }
+
+    private static int shapeOf(final TaskFilter filter, final TaskCursor after, final Collection<Long> ids) {
+        int shape = 0;
+        shape |= filter.taskStatus() != null ? TASK_STATUS : 0;
+        shape |= filter.executorId() != null ? EXECUTOR : 0;
+        shape |= filter.authorId() != null ? AUTHOR : 0;
+        shape |= !filter.labels().isEmpty() ? LABELS : 0;
+        shape |= filter.isMyTasks() ? CURRENT_USER : 0;
+        shape |= after != null ? CURSOR : 0;
+        shape |= ids != null ? IDS : 0;
+        return shape;
+    }
+
+    private static String render(final String select, final String orderBy, final int shape) {
+        final StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        if ((shape & TASK_STATUS) != 0) {
+            where.add("t.taskStatus.id = :taskStatus");
+        }
+        if ((shape & EXECUTOR) != 0) {
+            where.add("t.executor.id = :executorId");
+        }
+        if ((shape & AUTHOR) != 0) {
+            where.add("t.author.id = :authorId");
+        }
+        if ((shape & LABELS) != 0) {
+            where.add("exists (select 1 from t.labels l where l.id in :labels)");
+        }
+        if ((shape & CURRENT_USER) != 0) {
+            where.add("t.author.id = :currentUserId");
+        }
+        if ((shape & CURSOR) != 0) {
+            where.add("(t.createdAt > :afterCreatedAt or (t.createdAt = :afterCreatedAt and t.id > :afterId))");
+        }
+        if ((shape & IDS) != 0) {
+            where.add("t.id in :ids");
+        }
+        return select + where + orderBy;
+    }
+
+    private static String renderNativeWhere(final int shape) {
+        final StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        if ((shape & TASK_STATUS) != 0) {
+            where.add("t.task_status_id = :taskStatus");
+        }
+        if ((shape & EXECUTOR) != 0) {
+            where.add("t.executor_id = :executorId");
+        }
+        if ((shape & AUTHOR) != 0) {
+            where.add("t.author_id = :authorId");
+        }
+        if ((shape & LABELS) != 0) {
+            where.add("exists (select 1 from tasks_labels l where l.task_id = t.id and l.labels_id in (:labels))");
+        }
+        if ((shape & CURRENT_USER) != 0) {
+            where.add("t.author_id = :currentUserId");
+        }
+        if ((shape & IDS) != 0) {
+            where.add("t.id in (:ids)");
+        }
+        return where.toString();
+    }
+}
@@ -0,0 +1,459 @@
+package hexlet.code.component;
+
+import hexlet.code.event.TaskEvent;
+import hexlet.code.model.Task;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static hexlet.code.event.ChangeType.DELETED;
+
+/**
+ * In-process inverted index over task names and descriptions.
+ * Every query term matches as a prefix, all terms must match, and results are ranked by tf-idf
+ * with name matches and whole-word matches weighted higher.
+ * Creation times are kept too, so a page in creation order only needs the matches of its time window.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int NAME_WEIGHT = 3;
+    private static final float EXACT_MATCH_BOOST = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int REBUILD_FETCH_SIZE = 1000;
+
+    private final NavigableMap<String, Posting> postings = new TreeMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] taskIds = new long[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private String[][] documentTokens = new String[INITIAL_CAPACITY][];
+    // slot of the document in the posting of each of its tokens, so removal does not scan postings
+    private int[][] documentSlots = new int[INITIAL_CAPACITY][];
+    private int ordinalCount;
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        clear();
+        try (Stream<Tuple> rows = entityManager
+                .createQuery("select t.id as id, t.createdAt as createdAt, t.name as name,"
+                        + " t.description as description from Task t", Tuple.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, REBUILD_FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(row -> put(row.get("id", Long.class), row.get("createdAt", Date.class).getTime(),
+                    row.get("name", String.class), row.get("description", String.class)));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onTaskEvent(TaskEvent event) {
+        if (event.type() == DELETED) {
+            remove(event.taskId());
+        } else {
+            Task task = event.task();
+            put(task.getId(), task.getCreatedAt().getTime(), task.getName(), task.getDescription());
+        }
+    }
+
+    public void put(long id, long createdAtMillis, String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(name).forEach(token -> frequencies.merge(token, NAME_WEIGHT, Integer::sum));
+        tokenize(description).forEach(token -> frequencies.merge(token, 1, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinals.get(id);
+            if (existing != null) {
+                unindex(existing);
+            }
+            int ordinal = existing != null ? existing : allocate(id);
+            createdAt[ordinal] = createdAtMillis;
+            String[] tokens = new String[frequencies.size()];
+            int[] slots = new int[tokens.length];
+            int i = 0;
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                Posting posting = postings.computeIfAbsent(frequency.getKey(), Posting::new);
+                slots[i] = posting.add(ordinal, frequency.getValue(), i);
+                tokens[i++] = posting.token;
+            }
+            documentTokens[ordinal] = tokens;
+            documentSlots[ordinal] = slots;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+                documentTokens[ordinal] = null;
+                documentSlots[ordinal] = null;
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds all tasks matching every term of the query.
+     *
+     * @param query free text, each term is matched as a prefix
+     * @return ids of the matching tasks, best first
+     */
+    public long[] search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds tasks matching every term of the query.
+     *
+     * @param query free text, each term is matched as a prefix
+     * @param limit maximum number of ids to return
+     * @return ids of the best matching tasks, best first
+     */
+    public long[] search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            Scores scores = match(query);
+            return scores == null ? new long[0] : best(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the earliest created tasks matching every term of the query, for a page in creation order.
+     * The window holds at least {@code limit} matches unless it is the last one, and every match created
+     * in the same millisecond as the latest of them, so the next window starts at a later millisecond.
+     *
+     * @param query free text, each term is matched as a prefix
+     * @param fromCreatedAt creation time in epoch milliseconds the window starts at, inclusive
+     * @param limit number of matches to fill the window with
+     * @return ids of the matches in the window, in no particular order
+     */
+    public Window searchFrom(String query, long fromCreatedAt, int limit) {
+        lock.readLock().lock();
+        try {
+            Scores scores = match(query);
+            if (scores == null) {
+                return Window.EMPTY;
+            }
+
+            long[] times = new long[scores.size];
+            int count = 0;
+            for (int key : scores.keys) {
+                if (key != Scores.EMPTY && createdAt[key] >= fromCreatedAt) {
+                    times[count++] = createdAt[key];
+                }
+            }
+            if (count <= limit) {
+                return new Window(idsCreatedBetween(scores, fromCreatedAt, Long.MAX_VALUE, count), 0, true);
+            }
+            Arrays.sort(times, 0, count);
+            long until = times[limit - 1];
+            return new Window(idsCreatedBetween(scores, fromCreatedAt, until, limit), until + 1,
+                    until == times[count - 1]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> idsCreatedBetween(Scores scores, long from, long until, int expectedSize) {
+        List<Long> ids = new ArrayList<>(expectedSize);
+        for (int key : scores.keys) {
+            if (key != Scores.EMPTY && createdAt[key] >= from && createdAt[key] <= until) {
+                ids.add(taskIds[key]);
+            }
+        }
+        return ids;
+    }
+
+    // scores of the documents matching every term, null if there are none
+    private Scores match(String query) {
+        List<String> terms = tokenize(query).distinct().limit(MAX_QUERY_TERMS).toList();
+        Scores scores = null;
+        for (String term : terms) {
+            scores = scoreTerm(term, scores);
+            if (scores.size == 0) {
+                return null;
+            }
+        }
+        return scores;
+    }
+
+    private Scores scoreTerm(String term, Scores previous) {
+        Scores scores = new Scores(previous == null ? INITIAL_CAPACITY : previous.size);
+        float documentCount = Math.max(ordinals.size(), 1);
+        int expansions = 0;
+        for (Posting posting : postings.tailMap(term, true).values()) {
+            if (!posting.token.startsWith(term) || expansions++ == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            float weight = (float) Math.log(1 + documentCount / posting.size)
+                    * (posting.token.length() == term.length() ? EXACT_MATCH_BOOST : 1);
+            for (int i = 0; i < posting.size; i++) {
+                int ordinal = posting.ordinals[i];
+                if (previous == null || previous.contains(ordinal)) {
+                    scores.add(ordinal, posting.frequencies[i] * weight);
+                }
+            }
+        }
+        if (previous != null) {
+            for (int slot = 0; slot < scores.keys.length; slot++) {
+                if (scores.keys[slot] != Scores.EMPTY) {
+                    scores.values[slot] += previous.get(scores.keys[slot]);
+                }
+            }
+        }
+        return scores;
+    }
+
+    // Scores are positive, so their bits order like the floats: the score in the high half and the ordinal
+    // in the low half of a long rank the documents without boxing.
+    private long[] best(Scores scores, int limit) {
+        long[] ranked = new long[scores.size];
+        int count = 0;
+        for (int slot = 0; slot < scores.keys.length; slot++) {
+            if (scores.keys[slot] != Scores.EMPTY) {
+                ranked[count++] = (long) Float.floatToIntBits(scores.values[slot]) << Integer.SIZE | scores.keys[slot];
+            }
+        }
+        long[] top = top(ranked, limit);
+        long[] ids = new long[top.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = taskIds[(int) top[top.length - 1 - i]];
+        }
+        return ids;
+    }
+
+    // the largest values in ascending order, selected through a min-heap
+    private static long[] top(long[] values, int limit) {
+        if (limit >= values.length) {
+            Arrays.sort(values);
+            return values;
+        }
+        long[] heap = Arrays.copyOf(values, limit);
+        for (int i = limit / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i);
+        }
+        for (int i = limit; i < values.length; i++) {
+            if (values[i] > heap[0]) {
+                heap[0] = values[i];
+                siftDown(heap, 0);
+            }
+        }
+        Arrays.sort(heap);
+        return heap;
+    }
+
+    private static void siftDown(long[] heap, int index) {
+        int parent = index;
+        while (true) {
+            int smallest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < heap.length && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < heap.length && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == parent) {
+                return;
+            }
+            long swap = heap[parent];
+            heap[parent] = heap[smallest];
+            heap[smallest] = swap;
+            parent = smallest;
+        }
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            ordinals.clear();
+            freeOrdinals.clear();
+            Arrays.fill(documentTokens, null);
+            Arrays.fill(documentSlots, null);
+            ordinalCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int allocate(long id) {
+        int ordinal = freeOrdinals.isEmpty() ? ordinalCount++ : freeOrdinals.pop();
+        if (ordinal == taskIds.length) {
+            taskIds = Arrays.copyOf(taskIds, ordinal * 2);
+            createdAt = Arrays.copyOf(createdAt, ordinal * 2);
+            documentTokens = Arrays.copyOf(documentTokens, ordinal * 2);
+            documentSlots = Arrays.copyOf(documentSlots, ordinal * 2);
+        }
+        taskIds[ordinal] = id;
+        ordinals.put(id, ordinal);
+        return ordinal;
+    }
+
+    private void unindex(int ordinal) {
+        String[] tokens = documentTokens[ordinal];
+        for (int i = 0; i < tokens.length; i++) {
+            Posting posting = postings.get(tokens[i]);
+            int slot = documentSlots[ordinal][i];
+            posting.remove(slot);
+            if (posting.size == 0) {
+                postings.remove(tokens[i]);
+            } else if (slot < posting.size) {
+                // the last entry of the posting moved into the slot
+                documentSlots[posting.ordinals[slot]][posting.tokenIndexes[slot]] = slot;
+            }
+        }
+    }
+
+    private static Stream<String> tokenize(String text) {
+        if (text == null) {
+            return Stream.empty();
+        }
+        return TOKEN_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(token -> !token.isEmpty());
+    }
+
+    // next is the start of the following window in epoch milliseconds, last tells there is none
+    public record Window(List<Long> ids, long next, boolean last) {
+        static final Window EMPTY = new Window(List.of(), 0, true);
+    }
+
+    private static final class Posting {
+        private final String token;
+        private int[] ordinals = new int[2];
+        private int[] frequencies = new int[2];
+        // index of the token in the document's token array, to update the slot of an entry that moves
+        private int[] tokenIndexes = new int[2];
+        private int size;
+
+        Posting(String token) {
+            this.token = token;
+        }
+
+        int add(int ordinal, int frequency, int tokenIndex) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                tokenIndexes = Arrays.copyOf(tokenIndexes, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            tokenIndexes[size] = tokenIndex;
+            return size++;
+        }
+
+        // the last entry takes the freed slot
+        void remove(int slot) {
+            size--;
+            ordinals[slot] = ordinals[size];
+            frequencies[slot] = frequencies[size];
+            tokenIndexes[slot] = tokenIndexes[size];
+        }
+    }
+
+    /**
+     * Open-addressing map from document ordinal to score, avoiding boxing on the query path.
+     */
+    private static final class Scores {
+        private static final int EMPTY = -1;
+        private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+        private int[] keys;
+        private float[] values;
+        private int size;
+
+        Scores(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) * 2;
+            keys = new int[capacity];
+            values = new float[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        boolean contains(int key) {
+            return keys[slot(keys, key)] == key;
+        }
+
+        float get(int key) {
+            int slot = slot(keys, key);
+            return keys[slot] == key ? values[slot] : 0;
+        }
+
+        void add(int key, float value) {
+            int slot = slot(keys, key);
+            if (keys[slot] == EMPTY) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = slot(keys, key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] += value;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            float[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(int[] keys, int key) {
+            int mask = keys.length - 1;
+            int slot = (key * HASH_MULTIPLIER >>> 1) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package hexlet.code.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hexlet.code.event.ChangeEvent;
+import hexlet.code.event.ChangeType;
+import hexlet.code.event.TaskBulkEvent;
+import hexlet.code.event.TaskEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes task, label and status changes to the outbox table in the transaction that makes them,
+ * for {@link OutboxDispatcher} to hand over to consumers after commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionalOutbox {
+
+    private static final String INSERT_EVENT = "insert into outbox_events"
+            + " (aggregate_type, aggregate_id, event_type, payload, created_at) values (?, ?, ?, ?, ?)";
+    private static final int AGGREGATE_TYPE = 1;
+    private static final int AGGREGATE_ID = 2;
+    private static final int EVENT_TYPE = 3;
+    private static final int PAYLOAD = 4;
+    private static final int CREATED_AT = 5;
+
+    private static final HibernateJpaDialect JPA_DIALECT = new HibernateJpaDialect();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    @Value("${tasks.batch.size:1000}")
+    private int batchSize;
+
+    private record Row(String aggregateType, long aggregateId, ChangeType type, String payload) {
+    }
+
+    @EventListener
+    public void onChangeEvent(ChangeEvent event) {
+        add(List.of(new Row(event.aggregateType(), event.aggregateId(), event.type(), serialize(event.entity()))));
+    }
+
+    // a bulk update is recorded as the operation it applied, one row per task so each task's changes stay in order
+    @EventListener
+    public void onTaskBulkEvent(TaskBulkEvent event) {
+        final String payload = serialize(event.update());
+        add(event.taskIds().stream()
+                .map(taskId -> new Row(TaskEvent.AGGREGATE_TYPE, taskId, ChangeType.UPDATED, payload))
+                .toList());
+    }
+
+    private void add(List<Row> newRows) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(newRows);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Row> pending = (List<Row>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            final List<Row> rows = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, rows);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    flush();
+                    write(rows);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(TransactionalOutbox.this);
+                }
+            });
+            pending = rows;
+        }
+        pending.addAll(newRows);
+    }
+
+    // the entity rows are locked before the outbox ids are taken, so the changes of one entity
+    // get increasing ids in commit order
+    private void flush() {
+        try {
+            entityManager.flush();
+        } catch (RuntimeException e) {
+            final DataAccessException translated = JPA_DIALECT.translateExceptionIfPossible(e);
+            throw translated == null ? e : translated;
+        }
+    }
+
+    private void write(List<Row> rows) {
+        final Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows, batchSize, (statement, row) -> {
+            statement.setString(AGGREGATE_TYPE, row.aggregateType());
+            statement.setLong(AGGREGATE_ID, row.aggregateId());
+            statement.setString(EVENT_TYPE, row.type().name());
+            statement.setString(PAYLOAD, row.payload());
+            statement.setTimestamp(CREATED_AT, createdAt);
+        });
+    }
+
+    private String serialize(final Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
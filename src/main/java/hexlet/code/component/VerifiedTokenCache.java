@@ -0,0 +1,74 @@
+package hexlet.code.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.jsonwebtoken.Claims.EXPIRATION;
+
+/**
+ * Claims of tokens that already passed {@link JWTHelper#verify}, keyed by a SHA-256 digest of the token
+ * and kept until the token expires, so a client repeating its token skips signature checks and parsing.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public static final String CACHE_NAME = "verifiedTokens";
+
+    private final JWTHelper jwtHelper;
+    private final Cache<String, Map<String, Object>> cache;
+
+    public VerifiedTokenCache(final JWTHelper jwtHelper,
+                              final MeterRegistry meterRegistry,
+                              @Value("${jwt.verified-cache.maximum-size:10000}") final long maximumSize,
+                              @Value("${jwt.expiration-sec:86400}") final long expirationSec) {
+        this.jwtHelper = jwtHelper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry(TimeUnit.SECONDS.toNanos(expirationSec)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Map<String, Object> verify(final String token) {
+        return cache.get(JWTHelper.digest(token), key -> Map.copyOf(jwtHelper.verify(token)));
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, Map<String, Object>> {
+
+        private final long defaultNanos;
+
+        UntilTokenExpiry(final long defaultNanos) {
+            this.defaultNanos = defaultNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(final String key, final Map<String, Object> claims, final long currentTime) {
+            if (!(claims.get(EXPIRATION) instanceof Number expiration)) {
+                return defaultNanos;
+            }
+            final long millisLeft = TimeUnit.SECONDS.toMillis(expiration.longValue()) - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(final String key, final Map<String, Object> claims,
+                                      final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(final String key, final Map<String, Object> claims,
+                                    final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
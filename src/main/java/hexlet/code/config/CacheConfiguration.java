@@ -0,0 +1,27 @@
+package hexlet.code.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+    public static final String LABELS = "labels";
+    public static final String LABEL_LISTS = "labelLists";
+    public static final String TASK_STATUSES = "taskStatuses";
+    public static final String TASK_STATUS_LISTS = "taskStatusLists";
+    public static final String TOKEN_VERSIONS = "tokenVersions";
+
+    // token versions are evicted only on the instance that changed them, so their entries live briefly:
+    // a token revoked elsewhere is rejected here once the entry expires
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> tokenVersionsCache(
+            @Value("${jwt.token-versions.spec:maximumSize=10000,expireAfterWrite=30s,recordStats}") final String spec) {
+        return cacheManager -> cacheManager.registerCustomCache(TOKEN_VERSIONS, Caffeine.from(spec).build());
+    }
+}
@@ -1,21 +1,50 @@
 package hexlet.code.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import hexlet.code.component.TaskFilterArgumentResolver;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.resource.PathResourceResolver;
 
 import java.io.IOException;
+import java.util.List;
 
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
 
     private final String baseApiPath;
+    private final TaskFilterArgumentResolver taskFilterArgumentResolver;
 
-    public WebConfiguration(@Value("${base-url}") String baseApiPath) {
+    public WebConfiguration(@Value("${base-url}") String baseApiPath,
+                            TaskFilterArgumentResolver taskFilterArgumentResolver) {
         this.baseApiPath = baseApiPath;
+        this.taskFilterArgumentResolver = taskFilterArgumentResolver;
+    }
+
+    // binary encodings of the same documents, for clients that ask for them in Accept or Content-Type;
+    // they take the places of the default ones after the JSON converter, so JSON stays the default
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(taskFilterArgumentResolver);
     }
 
     @Override
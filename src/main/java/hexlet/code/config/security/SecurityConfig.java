@@ -1,13 +1,15 @@
 package hexlet.code.config.security;
 
-import hexlet.code.component.JWTHelper;
-import hexlet.code.filter.JWTAuthenticationFilter;
+import hexlet.code.component.VerifiedTokenCache;
 import hexlet.code.filter.JWTAuthorizationFilter;
+import hexlet.code.service.UserService;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -25,6 +27,7 @@ import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import java.util.List;
 
+import static hexlet.code.controller.AuthController.REFRESH;
 import static hexlet.code.controller.UserController.USER_CONTROLLER_PATH;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
@@ -40,24 +43,26 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     public static final List<GrantedAuthority> DEFAULT_AUTHORITIES = List.of(new SimpleGrantedAuthority("USER"));
 
     private final RequestMatcher publicUrls;
-    private final RequestMatcher loginRequest;
     private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
-    private final JWTHelper jwtHelper;
+    private final VerifiedTokenCache verifiedTokens;
+    private final UserService userService;
 
     public SecurityConfig(@Value("${base-url}") final String baseUrl,
                           final UserDetailsService userDetailsService,
-                          final PasswordEncoder passwordEncoder, final JWTHelper jwtHelper) {
-        this.loginRequest = new AntPathRequestMatcher(baseUrl + LOGIN, POST.toString());
+                          final PasswordEncoder passwordEncoder,
+                          final VerifiedTokenCache verifiedTokens, final UserService userService) {
         this.publicUrls = new OrRequestMatcher(
-                loginRequest,
+                new AntPathRequestMatcher(baseUrl + LOGIN, POST.toString()),
+                new AntPathRequestMatcher(baseUrl + REFRESH, POST.toString()),
                 new AntPathRequestMatcher(baseUrl + USER_CONTROLLER_PATH, POST.toString()),
                 new AntPathRequestMatcher(baseUrl + USER_CONTROLLER_PATH, GET.toString()),
                 new NegatedRequestMatcher(new AntPathRequestMatcher(baseUrl + "/**"))
         );
         this.userDetailsService = userDetailsService;
         this.passwordEncoder = passwordEncoder;
-        this.jwtHelper = jwtHelper;
+        this.verifiedTokens = verifiedTokens;
+        this.userService = userService;
     }
 
     @Override
@@ -66,18 +71,19 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .passwordEncoder(passwordEncoder);
     }
 
+    @Bean
     @Override
-    public void configure(final HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManagerBean() throws Exception {
+        return super.authenticationManagerBean();
+    }
 
-        final var authenticationFilter = new JWTAuthenticationFilter(
-                authenticationManagerBean(),
-                loginRequest,
-                jwtHelper
-        );
+    @Override
+    public void configure(final HttpSecurity http) throws Exception {
 
         final var authorizationFilter = new JWTAuthorizationFilter(
                 publicUrls,
-                jwtHelper
+                verifiedTokens,
+                userService
         );
 
         http.csrf().disable()
@@ -85,7 +91,6 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .requestMatchers(publicUrls).permitAll()
                 .anyRequest().authenticated()
                 .and()
-                .addFilter(authenticationFilter)
                 .addFilterBefore(authorizationFilter, UsernamePasswordAuthenticationFilter.class)
                 .sessionManagement().disable()
                 .formLogin().disable()
@@ -0,0 +1,26 @@
+package hexlet.code.config.security;
+
+import lombok.Getter;
+import org.springframework.security.core.userdetails.User;
+
+import static hexlet.code.config.security.SecurityConfig.DEFAULT_AUTHORITIES;
+
+/**
+ * Authenticated user as carried by the token, so request handling can identify the user without a lookup.
+ */
+@Getter
+public class UserPrincipal extends User {
+
+    private final long id;
+    private final int tokenVersion;
+
+    public UserPrincipal(final long id, final String email, final String password, final int tokenVersion) {
+        super(email, password, DEFAULT_AUTHORITIES);
+        this.id = id;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public UserPrincipal(final long id, final String email, final int tokenVersion) {
+        this(id, email, "", tokenVersion);
+    }
+}
@@ -0,0 +1,53 @@
+package hexlet.code.controller;
+
+import hexlet.code.dto.LoginDto;
+import hexlet.code.dto.TokenPair;
+import hexlet.code.service.AuthService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+import static hexlet.code.config.security.SecurityConfig.LOGIN;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("${base-url}")
+public class AuthController {
+
+    public static final String REFRESH = LOGIN + "/refresh";
+    public static final String REFRESH_TOKEN_HEADER = "X-Refresh-Token";
+
+    private final AuthService authService;
+
+    @Operation(summary = "Log in, returns an access token and a refresh token in the X-Refresh-Token header")
+    @ApiResponse(responseCode = "401", description = "Wrong email or password")
+    @ApiResponse(responseCode = "503", description = "Too many logins in progress, retry later")
+    @PostMapping(LOGIN)
+    public CompletableFuture<ResponseEntity<String>> login(@RequestBody LoginDto loginDto) {
+        return authService.login(loginDto).thenApply(AuthController::toResponse);
+    }
+
+    @Operation(summary = "Exchange a refresh token for a new access token and refresh token")
+    @ApiResponse(responseCode = "401", description = "Refresh token unknown, already used or expired")
+    @PostMapping(REFRESH)
+    public ResponseEntity<String> refresh(@RequestHeader(REFRESH_TOKEN_HEADER) String refreshToken) {
+        return toResponse(authService.refresh(refreshToken));
+    }
+
+    private static ResponseEntity<String> toResponse(TokenPair tokens) {
+        return ResponseEntity.ok()
+                .header(REFRESH_TOKEN_HEADER, tokens.refreshToken())
+                .body(tokens.accessToken());
+    }
+}
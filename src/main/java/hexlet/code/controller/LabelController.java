@@ -1,8 +1,10 @@
 package hexlet.code.controller;
 
+import hexlet.code.component.DatabaseReadExecutor;
+import hexlet.code.component.FieldProjections;
+import hexlet.code.component.ResourceValidators;
 import hexlet.code.dto.LabelDto;
 import hexlet.code.model.Label;
-import hexlet.code.repository.LabelRepository;
 import hexlet.code.service.LabelService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,21 +15,31 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 
+import static hexlet.code.component.FieldProjections.FIELDS;
+import static hexlet.code.component.FieldProjections.LABEL_FIELDS;
+import static hexlet.code.component.ResourceValidators.LABELS;
 import static hexlet.code.controller.LabelController.LABEL_CONTROLLER_PATH;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
 
 @RequiredArgsConstructor
@@ -39,12 +51,29 @@ public class LabelController {
     public static final String ID = "/{id}";
 
     private final LabelService labelService;
-    private final LabelRepository labelRepository;
+    private final ResourceValidators validators;
+    private final FieldProjections fieldProjections;
+    private final DatabaseReadExecutor databaseReadExecutor;
+
+    @Value("${db-reads.timeout-ms.labels:5000}")
+    private long readTimeoutMs;
 
     @Operation(summary = "Get label by ID")
     @GetMapping(ID)
-    public Label getLabel(@PathVariable long id) throws NoSuchElementException {
-        return labelRepository.findById(id).get();
+    public Label getLabel(@PathVariable long id, WebRequest request) throws NoSuchElementException {
+        if (validators.checkNotModified(request, validators.entity(LABELS, id))) {
+            return null;
+        }
+        return labelService.getLabel(id);
+    }
+
+    @Operation(summary = "Get the given fields of a label by ID")
+    @GetMapping(value = ID, params = FIELDS)
+    public Map<String, Object> getLabelFields(@PathVariable long id, @RequestParam String fields, WebRequest request) {
+        if (validators.checkNotModified(request, validators.entity(LABELS, id))) {
+            return null;
+        }
+        return fieldProjections.findById(LABEL_FIELDS, id, fields);
     }
 
     @Operation(summary = "Get a list of all labels")
@@ -53,10 +82,20 @@ public class LabelController {
         @Schema(implementation = Label.class))
         ))
     @GetMapping("")
-    public List<Label> getAllLabels() throws Exception {
-        return labelRepository.findAll()
-                .stream()
-                .toList();
+    public CompletableFuture<List<Label>> getAllLabels(WebRequest request) throws Exception {
+        if (validators.checkNotModified(request, validators.entities(LABELS))) {
+            return null;
+        }
+        return databaseReadExecutor.supply("labels", readTimeoutMs, labelService::getAllLabels);
+    }
+
+    @Operation(summary = "Get the given fields of all labels")
+    @GetMapping(value = "", params = FIELDS)
+    public List<Map<String, Object>> getAllLabelFields(@RequestParam String fields, WebRequest request) {
+        if (validators.checkNotModified(request, validators.entities(LABELS))) {
+            return null;
+        }
+        return fieldProjections.findAll(LABEL_FIELDS, fields);
     }
 
     @Operation(summary = "Create a new label")
@@ -69,13 +108,15 @@ public class LabelController {
 
     @Operation(summary = "Update label by ID")
     @PutMapping(ID)
-    public Label updateLabel(@PathVariable long id, @RequestBody @Valid LabelDto labelDto) {
+    public Label updateLabel(@PathVariable long id, @RequestBody @Valid LabelDto labelDto,
+                             @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        validators.checkIfMatch(ifMatch, validators.entity(LABELS, id));
         return labelService.updateLabel(id, labelDto);
     }
 
     @Operation(summary = "Delete label by ID")
     @DeleteMapping(ID)
     public void deleteLabel(@PathVariable long id) {
-        labelRepository.deleteById(id);
+        labelService.deleteLabel(id);
     }
 }
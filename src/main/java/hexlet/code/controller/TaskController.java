@@ -1,11 +1,24 @@
 package hexlet.code.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import hexlet.code.component.DatabaseReadExecutor;
+import hexlet.code.component.FieldProjections;
+import hexlet.code.component.ResourceValidators;
+import hexlet.code.component.TaskEventFeed;
+import hexlet.code.component.TaskHistory;
+import hexlet.code.dto.TaskBulkUpdateDto;
+import hexlet.code.dto.TaskChanges;
 import hexlet.code.dto.TaskDto;
+import hexlet.code.dto.TaskFacets;
+import hexlet.code.dto.TaskFilter;
+import hexlet.code.dto.TaskHistoryEntry;
+import hexlet.code.exception.BadRequestException;
 import hexlet.code.model.Task;
 import hexlet.code.repository.TaskRepository;
 import hexlet.code.service.TaskService;
+import hexlet.code.service.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,23 +28,39 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
+import static hexlet.code.component.FieldProjections.FIELDS;
+import static hexlet.code.component.FieldProjections.TASK_FIELDS;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @RequiredArgsConstructor
 @RestController
@@ -40,31 +69,143 @@ public class TaskController {
 
     public static final String TASK_CONTROLLER_PATH = "/tasks";
     public static final String ID = "/{id}";
+    public static final String FACETS = "/facets";
+    public static final String BATCH = "/batch";
+    public static final String EVENTS = "/events";
+    public static final String CHANGES = "/changes";
+    public static final String HISTORY = "/history";
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
 
     private final TaskService taskService;
     private final TaskRepository taskRepository;
+    private final UserService userService;
+    private final ResourceValidators validators;
+    private final TaskEventFeed taskEventFeed;
+    private final TaskHistory taskHistory;
+    private final ObjectMapper objectMapper;
+    private final FieldProjections fieldProjections;
+    private final DatabaseReadExecutor databaseReadExecutor;
 
-    private static final String ONLY_AUTHOR_BY_ID = """
-        @taskRepository.findById(#id).get().getAuthor().getEmail() == authentication.getName()
-        """;
+    @Value("${db-reads.timeout-ms.tasks:10000}")
+    private long readTimeoutMs;
+
+    private static final String ONLY_AUTHOR_BY_ID = "@ownershipChecks.isTaskAuthor(#id, principal)";
 
     @Operation(summary = "Get task by ID")
     @GetMapping(ID)
-    public Task getTask(@PathVariable long id) throws NoSuchElementException {
+    public Task getTask(@PathVariable long id, WebRequest request) throws NoSuchElementException {
+        if (validators.checkNotModified(request, validators.task(id))) {
+            return null;
+        }
         return taskRepository.findById(id).get();
     }
 
-    @Operation(summary = "Get all tasks by filter")
+    @Operation(summary = "Get the given fields of a task by ID")
+    @GetMapping(value = ID, params = FIELDS)
+    public Map<String, Object> getTaskFields(@PathVariable long id, @RequestParam String fields, WebRequest request) {
+        if (validators.checkNotModified(request, validators.task(id))) {
+            return null;
+        }
+        return fieldProjections.findById(TASK_FIELDS, id, fields);
+    }
+
+    @Operation(summary = "Get the changes of a task, oldest first, with the fields changed by each")
+    @GetMapping(ID + HISTORY)
+    public List<TaskHistoryEntry> getTaskHistory(@PathVariable long id) {
+        return taskHistory.getHistory(id);
+    }
+
+    // One handler for every shape of the collection, so that combined parameters cannot match several mappings.
+    @Operation(summary = "Get tasks by filter: all of them, their given fields (e.g. fields=id,name,taskStatus.name),"
+            + " a page ordered by creation time (limit and after), or a stream (stream=true or an NDJSON Accept)")
     @ApiResponses(@ApiResponse(responseCode = "200", content =
         @Content(schema =
         @Schema(implementation = Task.class))
         ))
     @GetMapping("")
-    public Iterable<Task> getFilteredTasks(
-            @RequestParam(required = false) Map<String, String> params
-    ) throws JsonProcessingException {
-        return params.isEmpty() ? taskRepository.findAll() : taskService.getFilteredTasks(params);
+    public Object getTasks(
+            TaskFilter filter,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean stream,
+            WebRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        String accept = request.getHeader(ACCEPT);
+        boolean ndjson = accept != null && accept.contains(APPLICATION_NDJSON_VALUE);
+        if (fields != null && (limit != null || stream || ndjson)) {
+            throw new BadRequestException("fields cannot be combined with limit or a stream");
+        }
+        if (stream || ndjson) {
+            if (limit != null) {
+                throw new BadRequestException("limit cannot be combined with a stream");
+            }
+            streamTasks(filter, ndjson, response);
+            return null;
+        }
+        if (limit != null) {
+            return taskService.getTasksPage(filter, after, limit);
+        }
+
+        Long currentUserId = filter.isMyTasks() ? userService.getCurrentUserId() : null;
+        if (validators.checkNotModified(request, validators.tasks(currentUserId))) {
+            return null;
+        }
+        if (fields != null) {
+            return taskService.getFilteredTaskFields(filter, fields);
+        }
+        return databaseReadExecutor.supply("tasks", readTimeoutMs, () -> taskService.getFilteredTasks(filter));
     }
+
+    @Operation(summary = "Subscribe to created, updated and deleted tasks, resuming after Last-Event-ID if given")
+    @GetMapping(value = EVENTS, produces = TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents(@RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        return taskEventFeed.subscribe(lastEventId);
+    }
+
+    @Operation(summary = "Count tasks by filter, grouped by status, executor, author and label")
+    @GetMapping(FACETS)
+    public TaskFacets getTaskFacets(TaskFilter filter) {
+        return taskService.getTaskFacets(filter);
+    }
+
+    private void streamTasks(TaskFilter filter, boolean ndjson, HttpServletResponse response)
+            throws IOException {
+
+        response.setContentType(ndjson ? APPLICATION_NDJSON_VALUE : APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            taskService.streamFilteredTasks(filter, task -> writeTask(generator, task, ndjson));
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private static void writeTask(JsonGenerator generator, Task task, boolean ndjson) {
+        try {
+            generator.writeObject(task);
+            if (ndjson) {
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Operation(summary = "Get tasks changed and ids of tasks deleted after the cursor, with the next cursor")
+    @GetMapping(CHANGES)
+    public TaskChanges getTaskChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return taskService.getTaskChanges(since, limit);
+    }
+
     @Operation(summary = "Create a new task")
     @ApiResponse(responseCode = "201", description = "Task created")
     @PostMapping("")
@@ -73,16 +214,32 @@ public class TaskController {
         return taskService.createTask(taskDto);
     }
 
+    @Operation(summary = "Create tasks in bulk, all or none")
+    @ApiResponse(responseCode = "201", description = "Tasks created, ids in request order")
+    @ApiResponse(responseCode = "422", description = "Errors of every invalid task, by index")
+    @PostMapping(BATCH)
+    @ResponseStatus(CREATED)
+    public List<Long> createTasks(@RequestBody List<TaskDto> taskDtos) {
+        return taskService.createTasks(taskDtos);
+    }
+
     @Operation(summary = "Update task by ID")
     @PutMapping(ID)
-    public Task updateTask(@PathVariable long id, @RequestBody @Valid TaskDto dto) {
-        return taskService.updateTask(id, dto);
+    public Task updateTask(@PathVariable long id, @RequestBody @Valid TaskDto dto,
+                           @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        return taskService.updateTask(id, dto, ifMatch);
+    }
+
+    @Operation(summary = "Update every task selected by ids or filter, returns the number of affected rows")
+    @PatchMapping("")
+    public int bulkUpdate(TaskFilter filter, @RequestBody @Valid TaskBulkUpdateDto dto) {
+        return taskService.bulkUpdate(filter, dto);
     }
 
     @Operation(summary = "Delete task by ID")
     @DeleteMapping(ID)
     @PreAuthorize(ONLY_AUTHOR_BY_ID)
     public void deleteTask(@PathVariable long id) {
-        taskRepository.deleteById(id);
+        taskService.deleteTask(id);
     }
 }
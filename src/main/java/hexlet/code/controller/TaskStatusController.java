@@ -1,8 +1,8 @@
 package hexlet.code.controller;
 
+import hexlet.code.component.ResourceValidators;
 import hexlet.code.dto.TaskStatusDto;
 import hexlet.code.model.TaskStatus;
-import hexlet.code.repository.TaskStatusRepository;
 import hexlet.code.service.TaskStatusService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,15 +19,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import static hexlet.code.component.ResourceValidators.TASK_STATUSES;
 import static hexlet.code.controller.TaskStatusController.STATUS_CONTROLLER_PATH;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
 
 @RequiredArgsConstructor
@@ -38,12 +42,15 @@ public class TaskStatusController {
     public static final String ID = "/{id}";
 
     private final TaskStatusService taskStatusService;
-    private final TaskStatusRepository taskStatusRepository;
+    private final ResourceValidators validators;
 
     @Operation(summary = "Get status by ID")
     @GetMapping(ID)
-    public TaskStatus getStatus(@PathVariable long id) throws NoSuchElementException {
-        return taskStatusRepository.findById(id).get();
+    public TaskStatus getStatus(@PathVariable long id, WebRequest request) throws NoSuchElementException {
+        if (validators.checkNotModified(request, validators.entity(TASK_STATUSES, id))) {
+            return null;
+        }
+        return taskStatusService.getStatus(id);
     }
 
     @Operation(summary = "Get a list of all task statuses")
@@ -52,10 +59,11 @@ public class TaskStatusController {
         @Schema(implementation = TaskStatus.class))
         ))
     @GetMapping("")
-    public List<TaskStatus> getAllStatuses() throws Exception {
-        return taskStatusRepository.findAll()
-                .stream()
-                .toList();
+    public List<TaskStatus> getAllStatuses(WebRequest request) throws Exception {
+        if (validators.checkNotModified(request, validators.entities(TASK_STATUSES))) {
+            return null;
+        }
+        return taskStatusService.getAllStatuses();
     }
 
     @Operation(summary = "Create a new task status")
@@ -68,13 +76,15 @@ public class TaskStatusController {
 
     @Operation(summary = "Update task status by ID")
     @PutMapping(ID)
-    public TaskStatus updateStatus(@PathVariable long id, @RequestBody @Valid TaskStatusDto taskStatusDto) {
+    public TaskStatus updateStatus(@PathVariable long id, @RequestBody @Valid TaskStatusDto taskStatusDto,
+                                   @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        validators.checkIfMatch(ifMatch, validators.entity(TASK_STATUSES, id));
         return taskStatusService.updateStatus(id, taskStatusDto);
     }
 
     @Operation(summary = "Delete task status by ID")
     @DeleteMapping(ID)
     public void deleteStatus(@PathVariable long id) {
-        taskStatusRepository.deleteById(id);
+        taskStatusService.deleteStatus(id);
     }
 }
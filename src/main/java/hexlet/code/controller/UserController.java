@@ -1,5 +1,8 @@
 package hexlet.code.controller;
 
+import hexlet.code.component.DatabaseReadExecutor;
+import hexlet.code.component.FieldProjections;
+import hexlet.code.component.ResourceValidators;
 import hexlet.code.dto.UserDto;
 import hexlet.code.model.User;
 import hexlet.code.repository.UserRepository;
@@ -13,6 +16,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,15 +24,24 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 
+import static hexlet.code.component.FieldProjections.FIELDS;
+import static hexlet.code.component.FieldProjections.USER_FIELDS;
+import static hexlet.code.component.ResourceValidators.USERS;
 import static hexlet.code.controller.UserController.USER_CONTROLLER_PATH;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
 
 @RestController
@@ -41,26 +54,55 @@ public class UserController {
 
     private final UserService userService;
     private final UserRepository userRepository;
+    private final ResourceValidators validators;
+    private final FieldProjections fieldProjections;
+    private final DatabaseReadExecutor databaseReadExecutor;
 
-    private static final String ONLY_OWNER_BY_ID = """
-            @userRepository.findById(#id).get().getEmail() == authentication.getName()
-        """;
+    @Value("${db-reads.timeout-ms.users:5000}")
+    private long readTimeoutMs;
+
+    private static final String ONLY_OWNER_BY_ID = "@ownershipChecks.isUser(#id, principal)";
 
     @Operation(summary = "Get user by ID")
     @GetMapping(ID)
-    public User getUser(@PathVariable long id) throws NoSuchElementException {
+    public User getUser(@PathVariable long id, WebRequest request) throws NoSuchElementException {
+        if (validators.checkNotModified(request, validators.entity(USERS, id))) {
+            return null;
+        }
         return userRepository.findById(id).get();
     }
+
+    @Operation(summary = "Get the given fields of a user by ID")
+    @GetMapping(value = ID, params = FIELDS)
+    public Map<String, Object> getUserFields(@PathVariable long id, @RequestParam String fields, WebRequest request) {
+        if (validators.checkNotModified(request, validators.entity(USERS, id))) {
+            return null;
+        }
+        return fieldProjections.findById(USER_FIELDS, id, fields);
+    }
+
     @Operation(summary = "Get a list of all users")
     @ApiResponses(@ApiResponse(responseCode = "200", content =
         @Content(schema =
         @Schema(implementation = User.class))
         ))
     @GetMapping("")
-    public List<User> getAllUsers() throws Exception {
-        return userRepository.findAll()
+    public CompletableFuture<List<User>> getAllUsers(WebRequest request) throws Exception {
+        if (validators.checkNotModified(request, validators.entities(USERS))) {
+            return null;
+        }
+        return databaseReadExecutor.supply("users", readTimeoutMs, () -> userRepository.findAll()
                 .stream()
-                .toList();
+                .toList());
+    }
+
+    @Operation(summary = "Get the given fields of all users")
+    @GetMapping(value = "", params = FIELDS)
+    public List<Map<String, Object>> getAllUserFields(@RequestParam String fields, WebRequest request) {
+        if (validators.checkNotModified(request, validators.entities(USERS))) {
+            return null;
+        }
+        return fieldProjections.findAll(USER_FIELDS, fields);
     }
 
     @Operation(summary = "Create a new user")
@@ -74,7 +116,9 @@ public class UserController {
     @Operation(summary = "Update user by ID")
     @PreAuthorize(ONLY_OWNER_BY_ID)
     @PutMapping(ID)
-    public User updateUser(@PathVariable @Valid long id, @RequestBody @Valid UserDto userDto) {
+    public User updateUser(@PathVariable @Valid long id, @RequestBody @Valid UserDto userDto,
+                           @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        validators.checkIfMatch(ifMatch, validators.entity(USERS, id));
         return userService.updateUser(id, userDto);
     }
 
@@ -82,6 +126,6 @@ public class UserController {
     @PreAuthorize(ONLY_OWNER_BY_ID)
     @DeleteMapping(ID)
     public void deleteUser(@PathVariable long id) {
-        userRepository.deleteById(id);
+        userService.deleteUser(id);
     }
 }
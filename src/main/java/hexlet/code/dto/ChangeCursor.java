@@ -0,0 +1,31 @@
+package hexlet.code.dto;
+
+import hexlet.code.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public record ChangeCursor(long seq, long taskId) {
+
+    public static final ChangeCursor START = new ChangeCursor(-1, 0);
+
+    private static final String SEPARATOR = ":";
+
+    public String encode() {
+        final String raw = seq + SEPARATOR + taskId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String token) {
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new BadRequestException("Malformed cursor: " + token);
+            }
+            return new ChangeCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Malformed cursor: " + token, e);
+        }
+    }
+}
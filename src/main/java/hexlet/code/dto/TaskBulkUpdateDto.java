@@ -0,0 +1,36 @@
+package hexlet.code.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Set;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class TaskBulkUpdateDto {
+    private List<Long> ids;
+
+    @NotNull
+    private Operation operation;
+
+    private Long taskStatusId;
+
+    private Long executorId;
+
+    private Set<Long> labelIds;
+
+    public enum Operation {
+        SET_STATUS,
+        SET_EXECUTOR,
+        ADD_LABELS,
+        REMOVE_LABELS
+    }
+}
@@ -0,0 +1,23 @@
+package hexlet.code.dto;
+
+import hexlet.code.model.Task;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public final class TaskChanges {
+    private List<Task> changed;
+
+    private List<Long> deleted;
+
+    private String cursor;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,30 @@
+package hexlet.code.dto;
+
+import hexlet.code.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+public record TaskCursor(Date createdAt, long id) {
+
+    private static final String SEPARATOR = ":";
+
+    public String encode() {
+        final String raw = createdAt.getTime() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TaskCursor decode(String token) {
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new BadRequestException("Malformed cursor: " + token);
+            }
+            return new TaskCursor(new Date(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Malformed cursor: " + token, e);
+        }
+    }
+}
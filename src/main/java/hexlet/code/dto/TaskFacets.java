@@ -0,0 +1,89 @@
+package hexlet.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+@AllArgsConstructor
+@Getter
+public final class TaskFacets {
+    // tags of the facet count rows
+    public static final int FACET_TASK_STATUS = 0;
+    public static final int FACET_EXECUTOR = 1;
+    public static final int FACET_AUTHOR = 2;
+    public static final int FACET_LABEL = 3;
+
+    // columns of the rows of a task and one of its labels
+    private static final int AUTHOR_COLUMN = 3;
+    private static final int LABEL_COLUMN = 4;
+
+    public static final TaskFacets EMPTY = new TaskFacets(Map.of(), Map.of(), Map.of(), Map.of());
+
+    private final Map<Long, Long> taskStatus;
+
+    private final Map<Long, Long> executor;
+
+    private final Map<Long, Long> author;
+
+    private final Map<Long, Long> labels;
+
+    // rows of disjoint sets of tasks add up
+    public static TaskFacets fromRows(List<Object[]> rows) {
+        TaskFacets facets = new TaskFacets(new TreeMap<>(), new TreeMap<>(), new TreeMap<>(), new TreeMap<>());
+        for (Object[] row : rows) {
+            if (row[1] == null) {
+                continue;
+            }
+            long id = ((Number) row[1]).longValue();
+            long count = ((Number) row[2]).longValue();
+            switch (((Number) row[0]).intValue()) {
+                case FACET_TASK_STATUS -> facets.taskStatus.merge(id, count, Long::sum);
+                case FACET_EXECUTOR -> facets.executor.merge(id, count, Long::sum);
+                case FACET_AUTHOR -> facets.author.merge(id, count, Long::sum);
+                case FACET_LABEL -> facets.labels.merge(id, count, Long::sum);
+                default -> throw new IllegalStateException("Unknown facet " + row[0]);
+            }
+        }
+        return facets;
+    }
+
+    // rows of a task and one of its labels come ordered by task: id, status, executor, author, label
+    public static TaskFacets fromTaskRows(Stream<Object[]> rows) {
+        TaskFacets facets = new TaskFacets(new TreeMap<>(), new TreeMap<>(), new TreeMap<>(), new TreeMap<>());
+        Object previousTask = null;
+        for (Iterator<Object[]> iterator = rows.iterator(); iterator.hasNext();) {
+            Object[] row = iterator.next();
+            if (!row[0].equals(previousTask)) {
+                count(facets.taskStatus, row[1]);
+                count(facets.executor, row[2]);
+                count(facets.author, row[AUTHOR_COLUMN]);
+                previousTask = row[0];
+            }
+            count(facets.labels, row[LABEL_COLUMN]);
+        }
+        return facets;
+    }
+
+    private static void count(Map<Long, Long> counts, Object id) {
+        if (id != null) {
+            counts.merge(((Number) id).longValue(), 1L, Long::sum);
+        }
+    }
+
+    // facets of disjoint sets of tasks add up
+    public TaskFacets plus(TaskFacets other) {
+        return new TaskFacets(sum(taskStatus, other.taskStatus), sum(executor, other.executor),
+                sum(author, other.author), sum(labels, other.labels));
+    }
+
+    private static Map<Long, Long> sum(Map<Long, Long> left, Map<Long, Long> right) {
+        Map<Long, Long> sum = new TreeMap<>(left);
+        right.forEach((id, count) -> sum.merge(id, count, Long::sum));
+        return sum;
+    }
+}
@@ -0,0 +1,18 @@
+package hexlet.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public final class TaskFieldChange {
+    private String field;
+
+    private Object from;
+
+    private Object to;
+}
@@ -0,0 +1,61 @@
+package hexlet.code.dto;
+
+import hexlet.code.exception.BadRequestException;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public record TaskFilter(Long taskStatus, Long executorId, Long authorId, Set<Long> labels, boolean isMyTasks,
+                         String q) {
+
+    public static final TaskFilter EMPTY = new TaskFilter(null, null, null, Set.of(), false, null);
+
+    public static TaskFilter fromParameters(Map<String, String[]> parameters) {
+        return new TaskFilter(
+                parseId(first(parameters, "taskStatus")),
+                parseId(first(parameters, "executorId")),
+                parseId(first(parameters, "authorId")),
+                parseIds(parameters.get("labels")),
+                "true".equals(first(parameters, "isMyTasks")),
+                parseText(first(parameters, "q"))
+        );
+    }
+
+    private static String parseText(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String first(Map<String, String[]> parameters, String name) {
+        final String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    private static Long parseId(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            final long id = Long.parseLong(value.trim());
+            return id > 0 ? id : null;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Malformed id: " + value, e);
+        }
+    }
+
+    private static Set<Long> parseIds(String[] values) {
+        if (values == null) {
+            return Set.of();
+        }
+        final Set<Long> ids = new HashSet<>();
+        for (String value : values) {
+            for (String part : value.replace("[", "").replace("]", "").split(",")) {
+                final Long id = parseId(part);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        return Set.copyOf(ids);
+    }
+}
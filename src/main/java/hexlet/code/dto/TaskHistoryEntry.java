@@ -0,0 +1,24 @@
+package hexlet.code.dto;
+
+import hexlet.code.event.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public final class TaskHistoryEntry {
+    private long seq;
+
+    private Date changedAt;
+
+    private ChangeType type;
+
+    private List<TaskFieldChange> changes;
+}
@@ -0,0 +1,19 @@
+package hexlet.code.dto;
+
+import hexlet.code.model.Task;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public final class TaskPage {
+    private List<Task> content;
+
+    private String nextCursor;
+}
@@ -0,0 +1,4 @@
+package hexlet.code.dto;
+
+public record TokenPair(String accessToken, String refreshToken) {
+}
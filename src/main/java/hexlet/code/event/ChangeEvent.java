@@ -0,0 +1,15 @@
+package hexlet.code.event;
+
+/**
+ * A change of an entity, published by the services inside the transaction that makes it.
+ */
+public interface ChangeEvent {
+
+    ChangeType type();
+
+    String aggregateType();
+
+    long aggregateId();
+
+    Object entity();
+}
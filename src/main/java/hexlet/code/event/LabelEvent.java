@@ -0,0 +1,23 @@
+package hexlet.code.event;
+
+import hexlet.code.model.Label;
+
+public record LabelEvent(ChangeType type, Label label) implements ChangeEvent {
+
+    public static final String AGGREGATE_TYPE = "label";
+
+    @Override
+    public String aggregateType() {
+        return AGGREGATE_TYPE;
+    }
+
+    @Override
+    public long aggregateId() {
+        return label.getId();
+    }
+
+    @Override
+    public Object entity() {
+        return label;
+    }
+}
@@ -0,0 +1,14 @@
+package hexlet.code.event;
+
+import java.util.List;
+
+/**
+ * Receives committed changes from the outbox dispatcher, in batches ordered by outbox id,
+ * so the changes of one entity arrive in the order they were made. Delivery is at least once:
+ * a batch is redelivered if any consumer throws or the application stops before it is acknowledged,
+ * so consumers have to be idempotent.
+ */
+public interface OutboxConsumer {
+
+    void accept(List<OutboxEvent> events);
+}
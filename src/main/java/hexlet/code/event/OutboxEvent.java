@@ -0,0 +1,7 @@
+package hexlet.code.event;
+
+import java.util.Date;
+
+public record OutboxEvent(long id, String aggregateType, long aggregateId, ChangeType type, String payload,
+                          Date createdAt) {
+}
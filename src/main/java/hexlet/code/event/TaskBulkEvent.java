@@ -0,0 +1,8 @@
+package hexlet.code.event;
+
+import hexlet.code.dto.TaskBulkUpdateDto;
+
+import java.util.List;
+
+public record TaskBulkEvent(List<Long> taskIds, TaskBulkUpdateDto update) {
+}
@@ -0,0 +1,27 @@
+package hexlet.code.event;
+
+import hexlet.code.model.Task;
+
+public record TaskEvent(ChangeType type, Task task) implements ChangeEvent {
+
+    public static final String AGGREGATE_TYPE = "task";
+
+    public long taskId() {
+        return task.getId();
+    }
+
+    @Override
+    public String aggregateType() {
+        return AGGREGATE_TYPE;
+    }
+
+    @Override
+    public long aggregateId() {
+        return taskId();
+    }
+
+    @Override
+    public Object entity() {
+        return task;
+    }
+}
@@ -0,0 +1,23 @@
+package hexlet.code.event;
+
+import hexlet.code.model.TaskStatus;
+
+public record TaskStatusEvent(ChangeType type, TaskStatus taskStatus) implements ChangeEvent {
+
+    public static final String AGGREGATE_TYPE = "task_status";
+
+    @Override
+    public String aggregateType() {
+        return AGGREGATE_TYPE;
+    }
+
+    @Override
+    public long aggregateId() {
+        return taskStatus.getId();
+    }
+
+    @Override
+    public Object entity() {
+        return taskStatus;
+    }
+}
@@ -1,9 +1,12 @@
 package hexlet.code.exception;
 
+import hexlet.code.dto.TaskBatchError;
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -12,12 +15,19 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
@@ -38,7 +48,7 @@ public class BaseExceptionHandler {
     }
 
     @ResponseStatus(BAD_REQUEST)
-    @ExceptionHandler({HttpMessageNotReadableException.class})
+    @ExceptionHandler({HttpMessageNotReadableException.class, TypeMismatchException.class, BadRequestException.class})
     public final String validationExceptionsHandler(Exception exception) {
         return exception.getMessage();
     }
@@ -49,12 +59,30 @@ public class BaseExceptionHandler {
         return exception.getAllErrors();
     }
 
+    @ResponseStatus(UNPROCESSABLE_ENTITY)
+    @ExceptionHandler(TaskBatchException.class)
+    public final List<TaskBatchError> taskBatchExceptionHandler(TaskBatchException exception) {
+        return exception.getErrors();
+    }
+
     @ResponseStatus(UNPROCESSABLE_ENTITY)
     @ExceptionHandler(DataIntegrityViolationException.class)
     public final String validationExceptionsHandler(DataIntegrityViolationException exception) {
         return exception.getCause().getCause().getMessage();
     }
 
+    @ResponseStatus(PRECONDITION_FAILED)
+    @ExceptionHandler(PreconditionFailedException.class)
+    public final String preconditionFailedExceptionHandler(PreconditionFailedException exception) {
+        return exception.getMessage();
+    }
+
+    @ResponseStatus(CONFLICT)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public final String optimisticLockingFailureExceptionHandler(OptimisticLockingFailureException exception) {
+        return "The resource was modified concurrently, retry with its current state";
+    }
+
     @ResponseStatus(FORBIDDEN)
     @ExceptionHandler(AccessDeniedException.class)
     public final String accessDeniedException(AccessDeniedException exception) {
@@ -62,8 +90,23 @@ public class BaseExceptionHandler {
     }
 
     @ResponseStatus(UNAUTHORIZED)
-    @ExceptionHandler(UsernameNotFoundException.class)
-    public final String userNotFoundExceptionHandler(UsernameNotFoundException exception) {
+    @ExceptionHandler(AuthenticationException.class)
+    public final String authenticationExceptionHandler(AuthenticationException exception) {
         return exception.getMessage();
     }
+
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    @ExceptionHandler(RejectedExecutionException.class)
+    public final String rejectedExecutionExceptionHandler(RejectedExecutionException exception,
+                                                          HttpServletResponse response) {
+        response.setHeader(RETRY_AFTER, "1");
+        return "Too many requests in progress, retry later";
+    }
+
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    @ExceptionHandler(TimeoutException.class)
+    public final String timeoutExceptionHandler(TimeoutException exception, HttpServletResponse response) {
+        response.setHeader(RETRY_AFTER, "1");
+        return "The request took too long, retry later";
+    }
 }
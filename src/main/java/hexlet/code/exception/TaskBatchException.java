@@ -0,0 +1,16 @@
+package hexlet.code.exception;
+
+import hexlet.code.dto.TaskBatchError;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class TaskBatchException extends RuntimeException {
+    private final List<TaskBatchError> errors;
+
+    public TaskBatchException(List<TaskBatchError> errors) {
+        super(errors.size() + " of the tasks are invalid");
+        this.errors = errors;
+    }
+}
@@ -1,6 +1,8 @@
 package hexlet.code.filter;
 
-import hexlet.code.component.JWTHelper;
+import hexlet.code.component.VerifiedTokenCache;
+import hexlet.code.config.security.UserPrincipal;
+import hexlet.code.service.UserService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.util.matcher.RequestMatcher;
@@ -12,9 +14,12 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import org.springframework.security.access.AccessDeniedException;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
-import static hexlet.code.config.security.SecurityConfig.DEFAULT_AUTHORITIES;
+import static hexlet.code.component.JWTHelper.TOKEN_VERSION;
+import static hexlet.code.component.JWTHelper.USER_ID;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.SPRING_SECURITY_FORM_USERNAME_KEY;
 
@@ -23,12 +28,15 @@ public class JWTAuthorizationFilter extends OncePerRequestFilter {
     private static final String BEARER = "Bearer";
 
     private final RequestMatcher publicUrls;
-    private final JWTHelper jwtHelper;
+    private final VerifiedTokenCache verifiedTokens;
+    private final UserService userService;
 
     public JWTAuthorizationFilter(final RequestMatcher publicUrls,
-                                  final JWTHelper jwtHelper) {
+                                  final VerifiedTokenCache verifiedTokens,
+                                  final UserService userService) {
         this.publicUrls = publicUrls;
-        this.jwtHelper = jwtHelper;
+        this.verifiedTokens = verifiedTokens;
+        this.userService = userService;
     }
 
     @Override
@@ -45,9 +53,9 @@ public class JWTAuthorizationFilter extends OncePerRequestFilter {
         final var authToken = Optional.ofNullable(request.getHeader(AUTHORIZATION))
                 .map(header -> header.replaceFirst("^" + BEARER, ""))
                 .map(String::trim)
-                .map(jwtHelper::verify)
-                .map(claims -> claims.get(SPRING_SECURITY_FORM_USERNAME_KEY))
-                .map(Object::toString)
+                .map(verifiedTokens::verify)
+                .map(this::buildPrincipal)
+                .filter(this::isCurrent)
                 .map(this::buildAuthToken)
                 .orElseThrow(() -> new AccessDeniedException("Unauthorized"));
 
@@ -56,11 +64,29 @@ public class JWTAuthorizationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private UsernamePasswordAuthenticationToken buildAuthToken(final String username) {
+    private UserPrincipal buildPrincipal(final Map<String, Object> claims) {
+        final Object username = claims.get(SPRING_SECURITY_FORM_USERNAME_KEY);
+        final Object userId = claims.get(USER_ID);
+        final Object tokenVersion = claims.get(TOKEN_VERSION);
+        if (username == null || !(userId instanceof Number) || !(tokenVersion instanceof Number)) {
+            return null;
+        }
+        return new UserPrincipal(
+                ((Number) userId).longValue(),
+                username.toString(),
+                ((Number) tokenVersion).intValue()
+        );
+    }
+
+    private boolean isCurrent(final UserPrincipal principal) {
+        return Objects.equals(userService.getTokenVersion(principal.getId()), principal.getTokenVersion());
+    }
+
+    private UsernamePasswordAuthenticationToken buildAuthToken(final UserPrincipal principal) {
         return new UsernamePasswordAuthenticationToken(
-                username,
+                principal,
                 null,
-                DEFAULT_AUTHORITIES
+                principal.getAuthorities()
         );
     }
 }
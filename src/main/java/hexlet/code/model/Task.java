@@ -4,28 +4,43 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.ForeignKey;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.Table;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.Set;
 
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+
 @Entity
+@Cacheable
+@Cache(usage = READ_WRITE)
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 @Table(name = "tasks")
+@NamedEntityGraph(name = Task.WITH_REFERENCES, attributeNodes = {
+    @NamedAttributeNode("taskStatus"),
+    @NamedAttributeNode("author"),
+    @NamedAttributeNode("executor"),
+    @NamedAttributeNode("labels")
+})
 public class Task extends BaseEntity {
 
+    public static final String WITH_REFERENCES = "Task.withReferences";
+
     @NotBlank
     @Column(unique = true)
     @Size(min = 3, max = 1000)
@@ -47,7 +62,8 @@ public class Task extends BaseEntity {
     @JoinColumn(name = "executor_id", foreignKey = @ForeignKey(name = "FK_TASKS_EXECUTORS_ID_COL"))
     private User executor;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
+    @Cache(usage = READ_WRITE)
     @JoinColumn(name = "label_id", foreignKey = @ForeignKey(name = "FK_TASK_LABELS_LABELS_ID_COL"))
     private Set<Label> labels;
 }
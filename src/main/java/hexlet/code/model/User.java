@@ -5,19 +5,25 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.validation.constraints.NotBlank;
 
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+
 @Entity
+@Cacheable
+@Cache(usage = READ_WRITE)
 @Getter
 @Setter
 @Table(name = "users")
 @NoArgsConstructor
 @AllArgsConstructor
-public final class User extends BaseEntity {
+public class User extends BaseEntity {
     @Column(unique = true)
     @NotBlank
     private String email;
@@ -32,6 +38,9 @@ public final class User extends BaseEntity {
     @JsonIgnore
     private String password;
 
+    @JsonIgnore
+    private int tokenVersion;
+
     public User(Long aLong) {
     }
 }
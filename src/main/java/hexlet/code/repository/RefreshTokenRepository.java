@@ -0,0 +1,23 @@
+package hexlet.code.repository;
+
+import hexlet.code.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.id = :id")
+    int deleteTokenById(String id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.userId = :userId and t.expiresAt < :now")
+    int deleteExpired(long userId, Date now);
+}
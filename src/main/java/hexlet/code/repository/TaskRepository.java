@@ -1,12 +1,53 @@
 package hexlet.code.repository;
 
 import hexlet.code.model.Task;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Task> findByName(String name);
+
+    @Override
+    @EntityGraph(Task.WITH_REFERENCES)
+    Optional<Task> findById(Long id);
+
+    @Override
+    @EntityGraph(Task.WITH_REFERENCES)
+    @Query("select distinct t from Task t")
+    List<Task> findAll();
+
+    @Query("select t.author.id from Task t where t.id = :id")
+    Optional<Long> findAuthorIdById(long id);
+
+    @Query("select t.name from Task t where t.name in :names")
+    List<String> findNamesIn(Collection<String> names);
+
+    @Query("""
+            select t.id as id, s.id as taskStatusId, e.id as executorId, a.id as authorId from Task t
+            left join t.taskStatus s left join t.executor e left join t.author a
+            """)
+    Stream<ReferenceIds> streamReferenceIds();
+
+    @Query("select t.id, l.id from Task t join t.labels l")
+    Stream<Object[]> streamLabelIds();
+
+    interface ReferenceIds {
+        Long getId();
+        Long getTaskStatusId();
+        Long getExecutorId();
+        Long getAuthorId();
+    }
 }
@@ -0,0 +1,12 @@
+package hexlet.code.service;
+
+import hexlet.code.dto.LoginDto;
+import hexlet.code.dto.TokenPair;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AuthService {
+    CompletableFuture<TokenPair> login(LoginDto dto);
+
+    TokenPair refresh(String refreshToken);
+}
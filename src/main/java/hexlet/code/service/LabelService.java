@@ -3,8 +3,20 @@ package hexlet.code.service;
 import hexlet.code.dto.LabelDto;
 import hexlet.code.model.Label;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 public interface LabelService {
+    Label getLabel(long id);
+
+    Set<Label> getLabels(Collection<Long> ids);
+
+    List<Label> getAllLabels();
+
     Label createLabel(LabelDto dto);
 
     Label updateLabel(long id, LabelDto dto);
+
+    void deleteLabel(long id);
 }
@@ -1,13 +1,27 @@
 package hexlet.code.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import hexlet.code.dto.TaskBulkUpdateDto;
 import hexlet.code.dto.TaskDto;
+import hexlet.code.dto.TaskFacets;
+import hexlet.code.dto.TaskFilter;
+import hexlet.code.dto.TaskChanges;
+import hexlet.code.dto.TaskPage;
 import hexlet.code.model.Task;
 
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface TaskService {
     Task createTask(TaskDto dto);
-    Task updateTask(long id, TaskDto dto);
-    Iterable<Task> getFilteredTasks(Map<String, String> params) throws JsonProcessingException;
+    List<Long> createTasks(List<TaskDto> dtos);
+    Task updateTask(long id, TaskDto dto, String ifMatch);
+    void deleteTask(long id);
+    int bulkUpdate(TaskFilter filter, TaskBulkUpdateDto dto);
+    Iterable<Task> getFilteredTasks(TaskFilter filter);
+    List<Map<String, Object>> getFilteredTaskFields(TaskFilter filter, String fields);
+    TaskFacets getTaskFacets(TaskFilter filter);
+    TaskPage getTasksPage(TaskFilter filter, String after, int limit);
+    TaskChanges getTaskChanges(String since, int limit);
+    void streamFilteredTasks(TaskFilter filter, Consumer<Task> consumer);
 }
@@ -3,8 +3,16 @@ package hexlet.code.service;
 import hexlet.code.dto.TaskStatusDto;
 import hexlet.code.model.TaskStatus;
 
+import java.util.List;
+
 public interface TaskStatusService {
+    TaskStatus getStatus(long id);
+
+    List<TaskStatus> getAllStatuses();
+
     TaskStatus createStatus(TaskStatusDto dto);
 
     TaskStatus updateStatus(long id, TaskStatusDto dto);
+
+    void deleteStatus(long id);
 }
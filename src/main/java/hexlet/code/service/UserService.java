@@ -11,4 +11,10 @@ public interface UserService {
     String getCurrentUserName();
 
     User getCurrentUser();
+
+    long getCurrentUserId();
+
+    Integer getTokenVersion(long id);
+
+    void deleteUser(long id);
 }
@@ -0,0 +1,97 @@
+package hexlet.code.service.implementation;
+
+import hexlet.code.component.JWTHelper;
+import hexlet.code.component.PasswordCheckExecutor;
+import hexlet.code.config.security.UserPrincipal;
+import hexlet.code.dto.LoginDto;
+import hexlet.code.dto.TokenPair;
+import hexlet.code.model.RefreshToken;
+import hexlet.code.model.User;
+import hexlet.code.repository.RefreshTokenRepository;
+import hexlet.code.repository.UserRepository;
+import hexlet.code.service.AuthService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static hexlet.code.component.JWTHelper.TOKEN_VERSION;
+import static hexlet.code.component.JWTHelper.USER_ID;
+import static org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.SPRING_SECURITY_FORM_USERNAME_KEY;
+
+@Service
+@RequiredArgsConstructor
+public class AuthServiceImpl implements AuthService {
+
+    private static final int REFRESH_TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final AuthenticationManager authenticationManager;
+    private final PasswordCheckExecutor passwordCheckExecutor;
+    private final JWTHelper jwtHelper;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${jwt.refresh-expiration-sec:2592000}")
+    private long refreshExpirationSec;
+
+    @Override
+    public CompletableFuture<TokenPair> login(LoginDto dto) {
+        final var authRequest = new UsernamePasswordAuthenticationToken(dto.getEmail(), dto.getPassword());
+        return passwordCheckExecutor.supply(() -> authenticationManager.authenticate(authRequest))
+                .thenApply(authentication -> {
+                    final UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+                    return transactionTemplate.execute(status ->
+                            issue(user.getId(), user.getUsername(), user.getTokenVersion()));
+                });
+    }
+
+    // a rejected token stays deleted, so it cannot be tried again
+    @Override
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public TokenPair refresh(String refreshToken) {
+        final String id = JWTHelper.digest(refreshToken);
+        final RefreshToken stored = refreshTokenRepository.findById(id)
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        if (refreshTokenRepository.deleteTokenById(id) == 0 || stored.getExpiresAt().before(new Date())) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        final User user = userRepository.findById(stored.getUserId())
+                .filter(candidate -> candidate.getTokenVersion() == stored.getTokenVersion())
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        return issue(user.getId(), user.getEmail(), user.getTokenVersion());
+    }
+
+    private TokenPair issue(long userId, String email, int tokenVersion) {
+        final String accessToken = jwtHelper.expiring(Map.of(
+                SPRING_SECURITY_FORM_USERNAME_KEY, email,
+                USER_ID, userId,
+                TOKEN_VERSION, tokenVersion
+        ));
+
+        final byte[] random = new byte[REFRESH_TOKEN_BYTES];
+        RANDOM.nextBytes(random);
+        final String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        final Date now = new Date();
+        refreshTokenRepository.deleteExpired(userId, now);
+        refreshTokenRepository.save(new RefreshToken(
+                JWTHelper.digest(refreshToken),
+                userId,
+                tokenVersion,
+                new Date(now.getTime() + TimeUnit.SECONDS.toMillis(refreshExpirationSec))
+        ));
+        return new TokenPair(accessToken, refreshToken);
+    }
+}
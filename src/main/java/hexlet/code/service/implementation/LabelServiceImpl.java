@@ -1,30 +1,118 @@
 package hexlet.code.service.implementation;
 
+import hexlet.code.component.CacheEvictions;
 import hexlet.code.dto.LabelDto;
+import hexlet.code.event.LabelEvent;
 import hexlet.code.model.Label;
 import hexlet.code.repository.LabelRepository;
 import hexlet.code.service.LabelService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static hexlet.code.config.CacheConfiguration.LABELS;
+import static hexlet.code.config.CacheConfiguration.LABEL_LISTS;
+import static hexlet.code.event.ChangeType.CREATED;
+import static hexlet.code.event.ChangeType.DELETED;
+import static hexlet.code.event.ChangeType.UPDATED;
+
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class LabelServiceImpl implements LabelService {
     private final LabelRepository labelRepository;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheEvictions cacheEvictions;
+
+    @Override
+    @Cacheable(LABELS)
+    @Transactional(readOnly = true)
+    public Label getLabel(long id) {
+        return labelRepository.findById(id).get();
+    }
+
+    /**
+     * Resolves labels from the cache and loads the missing ones with a single query.
+     *
+     * @param ids label ids
+     * @return labels with the given ids
+     * @throws NoSuchElementException if any of the labels does not exist
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Label> getLabels(Collection<Long> ids) {
+        final Cache cache = cacheManager.getCache(LABELS);
+        final Set<Label> labels = new HashSet<>();
+        final List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            final Label cached = cache.get(id, Label.class);
+            if (cached == null) {
+                missing.add(id);
+            } else {
+                labels.add(cached);
+            }
+        }
+        if (missing.isEmpty()) {
+            return labels;
+        }
+
+        final List<Label> loaded = labelRepository.findAllById(missing);
+        if (loaded.size() != Set.copyOf(missing).size()) {
+            throw new NoSuchElementException("Label not found");
+        }
+        loaded.forEach(label -> {
+            cache.put(label.getId(), label);
+            labels.add(label);
+        });
+        return labels;
+    }
+
+    @Override
+    @Cacheable(LABEL_LISTS)
+    @Transactional(readOnly = true)
+    public List<Label> getAllLabels() {
+        return List.copyOf(labelRepository.findAll());
+    }
 
     @Override
     public Label createLabel(LabelDto dto) {
         final Label label = new Label();
         label.setName(dto.getName());
-        return labelRepository.save(label);
+        final Label savedLabel = labelRepository.save(label);
+        eventPublisher.publishEvent(new LabelEvent(CREATED, savedLabel));
+        cacheEvictions.clear(LABEL_LISTS);
+        return savedLabel;
     }
 
     @Override
     public Label updateLabel(long id, LabelDto dto) {
         final Label labelToUpdate = labelRepository.findById(id).get();
         labelToUpdate.setName(dto.getName());
-        return labelRepository.save(labelToUpdate);
+        final Label savedLabel = labelRepository.save(labelToUpdate);
+        eventPublisher.publishEvent(new LabelEvent(UPDATED, savedLabel));
+        cacheEvictions.evict(LABELS, id);
+        cacheEvictions.clear(LABEL_LISTS);
+        return savedLabel;
+    }
+
+    @Override
+    public void deleteLabel(long id) {
+        final Label labelToDelete = labelRepository.findById(id).get();
+        labelRepository.delete(labelToDelete);
+        eventPublisher.publishEvent(new LabelEvent(DELETED, labelToDelete));
+        cacheEvictions.evict(LABELS, id);
+        cacheEvictions.clear(LABEL_LISTS);
     }
 }
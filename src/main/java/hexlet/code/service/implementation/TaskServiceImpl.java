@@ -1,131 +1,688 @@
 package hexlet.code.service.implementation;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.querydsl.core.BooleanBuilder;
-import com.querydsl.jpa.impl.JPAQuery;
-import com.querydsl.jpa.impl.JPAQueryFactory;
+import hexlet.code.component.FieldProjections;
+import hexlet.code.component.ResourceValidators;
+import hexlet.code.component.TaskBatchWriter;
+import hexlet.code.component.TaskBitmapIndex;
+import hexlet.code.component.TaskChangeLog;
+import hexlet.code.component.TaskQueryTemplates;
+import hexlet.code.component.TaskSearchIndex;
+import hexlet.code.dto.TaskBatchError;
+import hexlet.code.dto.TaskBulkUpdateDto;
+import hexlet.code.dto.ChangeCursor;
+import hexlet.code.dto.TaskChanges;
+import hexlet.code.dto.TaskCursor;
 import hexlet.code.dto.TaskDto;
+import hexlet.code.dto.TaskFacets;
+import hexlet.code.dto.TaskFilter;
+import hexlet.code.dto.TaskPage;
+import hexlet.code.event.TaskBulkEvent;
+import hexlet.code.event.TaskEvent;
+import hexlet.code.exception.BadRequestException;
+import hexlet.code.exception.TaskBatchException;
+import hexlet.code.model.BaseEntity;
 import hexlet.code.model.Label;
-import hexlet.code.model.QTask;
 import hexlet.code.model.Task;
+import hexlet.code.model.TaskStatus;
+import hexlet.code.model.User;
 import hexlet.code.repository.LabelRepository;
 import hexlet.code.repository.TaskRepository;
 import hexlet.code.repository.TaskStatusRepository;
 import hexlet.code.repository.UserRepository;
+import hexlet.code.service.LabelService;
 import hexlet.code.service.TaskService;
 import hexlet.code.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.query.NativeQuery;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static hexlet.code.component.TaskQueryTemplates.Kind.LIST;
+import static hexlet.code.component.TaskQueryTemplates.Kind.PAGE;
+import static hexlet.code.component.TaskQueryTemplates.Kind.STREAM;
+import static hexlet.code.event.ChangeType.CREATED;
+import static hexlet.code.event.ChangeType.DELETED;
+import static hexlet.code.event.ChangeType.UPDATED;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class TaskServiceImpl implements TaskService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BITMAP_MATCHES = 1000;
+    private static final int MAX_BATCH_SIZE = 100_000;
+    private static final String TOO_MANY_TASKS = "At most " + MAX_BATCH_SIZE + " tasks can be updated at once";
+    private static final int NAME_LOOKUP_CHUNK = 1000;
+    private static final int BULK_UPDATE_CHUNK = 1000;
+    private static final int ID_CHUNK = 1000;
+    private static final String TOUCH = "version = version + 1, updated_at = current_timestamp";
+    private static final String SET_STATUS =
+            "update tasks set task_status_id = :value, " + TOUCH + " where id in (:ids)";
+    private static final String SET_EXECUTOR =
+            "update tasks set executor_id = :value, " + TOUCH + " where id in (:ids)";
+    private static final String TOUCH_TASKS = "update tasks set " + TOUCH + " where id in (:ids)";
+    private static final String ADD_LABELS = """
+            insert into tasks_labels (task_id, labels_id)
+            select t.id, l.id from tasks t join labels l on l.id in (:labelIds) where t.id in (:ids)
+            and not exists (select 1 from tasks_labels tl where tl.task_id = t.id and tl.labels_id = l.id)
+            """;
+    private static final String REMOVE_LABELS =
+            "delete from tasks_labels where task_id in (:ids) and labels_id in (:labelIds)";
+    private static final String LABELS_OF_TASKS =
+            "select distinct t from Task t left join fetch t.labels where t.id in :ids";
+
     private final TaskRepository taskRepository;
     private final UserService userService;
-    private final TaskStatusRepository taskStatusRepository;
     private final UserRepository userRepository;
+    private final LabelService labelService;
+    private final TaskStatusRepository taskStatusRepository;
     private final LabelRepository labelRepository;
+    private final TaskBatchWriter taskBatchWriter;
+    private final Validator validator;
+    private final TaskQueryTemplates taskQueryTemplates;
+    private final TaskSearchIndex taskSearchIndex;
+    private final Optional<TaskBitmapIndex> taskBitmapIndex;
+    private final TaskChangeLog taskChangeLog;
+    private final FieldProjections fieldProjections;
+    private final ResourceValidators resourceValidators;
+    private final ApplicationEventPublisher eventPublisher;
 
     @PersistenceContext
     private final EntityManager entityManager;
 
+    @Value("${tasks.stream.fetch-size:500}")
+    private int streamFetchSize;
+
     @Override
     public Task createTask(TaskDto dto) {
         final Task task = new Task();
         task.setName(dto.getName());
         task.setDescription(dto.getDescription());
-        task.setTaskStatus(taskStatusRepository.findById(dto.getTaskStatusId()).get());
-        task.setAuthor(userService.getCurrentUser());
-        task.setExecutor(userRepository.findById(dto.getExecutorId()).get());
+        setReferences(task, dto);
+        final Task savedTask = reload(taskRepository.save(task));
+        eventPublisher.publishEvent(new TaskEvent(CREATED, savedTask));
+        return savedTask;
+    }
+
+    @Override
+    public List<Long> createTasks(List<TaskDto> dtos) {
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " tasks can be created at once");
+        }
+
+        Map<Long, TaskStatus> taskStatuses = byId(taskStatusRepository.findAllById(
+                idsOf(dtos.stream().map(TaskDto::getTaskStatusId))));
+        Map<Long, User> executors = byId(userRepository.findAllById(
+                idsOf(dtos.stream().map(TaskDto::getExecutorId))));
+        Map<Long, Label> labels = byId(labelRepository.findAllById(
+                idsOf(dtos.stream().map(TaskDto::getLabelIds).filter(Objects::nonNull).flatMap(Set::stream))));
+        Set<String> takenNames = existingNames(dtos);
+        User author = userService.getCurrentUser();
+
+        List<Task> tasks = new ArrayList<>(dtos.size());
+        List<TaskBatchError> errors = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            TaskDto dto = dtos.get(i);
+            List<String> messages = new ArrayList<>();
+            for (ConstraintViolation<TaskDto> violation : validator.validate(dto)) {
+                messages.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            if (dto.getName() != null && !takenNames.add(dto.getName())) {
+                messages.add("name: already exists");
+            }
+            if (!taskStatuses.containsKey(dto.getTaskStatusId())) {
+                messages.add("taskStatusId: not found");
+            }
+            if (dto.getExecutorId() != null && !executors.containsKey(dto.getExecutorId())) {
+                messages.add("executorId: not found");
+            }
+            Set<Long> labelIds = dto.getLabelIds() == null ? Set.of() : dto.getLabelIds();
+            if (!labels.keySet().containsAll(labelIds)) {
+                messages.add("labelIds: not found");
+            }
+            if (!messages.isEmpty()) {
+                errors.add(new TaskBatchError(i, messages));
+                continue;
+            }
+
+            Task task = new Task();
+            task.setName(dto.getName());
+            task.setDescription(dto.getDescription());
+            task.setTaskStatus(taskStatuses.get(dto.getTaskStatusId()));
+            task.setAuthor(author);
+            task.setExecutor(dto.getExecutorId() == null ? null : executors.get(dto.getExecutorId()));
+            task.setLabels(labelIds.stream().map(labels::get).collect(Collectors.toSet()));
+            tasks.add(task);
+        }
+        if (!errors.isEmpty()) {
+            throw new TaskBatchException(errors);
+        }
+
+        taskBatchWriter.insert(tasks);
+        tasks.forEach(task -> eventPublisher.publishEvent(new TaskEvent(CREATED, task)));
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    private static Set<Long> idsOf(Stream<Long> ids) {
+        return ids.filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static <T extends BaseEntity> Map<Long, T> byId(Collection<T> entities) {
+        return entities.stream().collect(Collectors.toMap(BaseEntity::getId, Function.identity()));
+    }
+
+    private Set<String> existingNames(List<TaskDto> dtos) {
+        List<String> names = dtos.stream().map(TaskDto::getName).filter(Objects::nonNull).distinct().toList();
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < names.size(); from += NAME_LOOKUP_CHUNK) {
+            existing.addAll(taskRepository.findNamesIn(
+                    names.subList(from, Math.min(from + NAME_LOOKUP_CHUNK, names.size()))));
+        }
+        return existing;
+    }
+
+    // Foreign keys are set from unloaded references after a select of the id, references already on the task
+    // cost nothing. Labels live in a join table and come from the cache or from one query for the missing ones,
+    // the loaded collection is changed in place so that only the changed links are written.
+    private void setReferences(Task task, TaskDto dto) {
+        if (task.getTaskStatus() == null || !Objects.equals(task.getTaskStatus().getId(), dto.getTaskStatusId())) {
+            task.setTaskStatus(reference(TaskStatus.class, dto.getTaskStatusId()));
+        }
+        long authorId = userService.getCurrentUserId();
+        if (task.getAuthor() == null || task.getAuthor().getId() != authorId) {
+            task.setAuthor(entityManager.getReference(User.class, authorId));
+        }
+        if (dto.getExecutorId() == null) {
+            task.setExecutor(null);
+        } else if (task.getExecutor() == null || !Objects.equals(task.getExecutor().getId(), dto.getExecutorId())) {
+            // the current user was checked when the request was authenticated
+            task.setExecutor(dto.getExecutorId() == authorId
+                    ? task.getAuthor()
+                    : reference(User.class, dto.getExecutorId()));
+        }
         if (dto.getLabelIds() != null) {
-            task.setLabels(getLabelsByIds(dto));
+            if (task.getLabels() == null) {
+                task.setLabels(new HashSet<>());
+            }
+            Set<Label> labels = task.getLabels();
+            labels.removeIf(label -> !dto.getLabelIds().contains(label.getId()));
+            Set<Long> missing = new HashSet<>(dto.getLabelIds());
+            labels.forEach(label -> missing.remove(label.getId()));
+            if (!missing.isEmpty()) {
+                labels.addAll(labelService.getLabels(missing));
+            }
+        }
+    }
+
+    private <T extends BaseEntity> T reference(Class<T> type, Long id) {
+        if (id == null || entityManager
+                .createQuery("select e.id from " + type.getSimpleName() + " e where e.id in :ids", Long.class)
+                .setParameter("ids", List.of(id))
+                .getResultList()
+                .isEmpty()) {
+            throw new NoSuchElementException(type.getSimpleName() + " " + id + " not found");
         }
-        return taskRepository.save(task);
+        return entityManager.getReference(type, id);
     }
 
-    private Set<Label> getLabelsByIds(TaskDto dto) {
-        return dto.getLabelIds().stream()
-                .map(id -> labelRepository.findById(id).get())
-                .collect(Collectors.toSet());
+    // the task holds unloaded references, the response is read again in one query with the task's fetch plan;
+    // only the task and those references are evicted, the rest of the persistence context stays managed
+    private Task reload(Task task) {
+        taskRepository.flush();
+        final User executor = task.getExecutor() == task.getAuthor() ? null : task.getExecutor();
+        Stream.of(task.getTaskStatus(), task.getAuthor(), executor)
+                .filter(HibernateProxy.class::isInstance)
+                .forEach(entityManager::detach);
+        entityManager.detach(task);
+        return taskRepository.findById(task.getId()).get();
     }
 
     @Override
-    public Task updateTask(long id, TaskDto dto) {
-        final Task taskToUpdate = taskRepository.findById(id).get();
+    public Task updateTask(long id, TaskDto dto, String ifMatch) {
+        final Task taskToUpdate = ifMatch == null ? taskRepository.findById(id).get() : lockIfMatches(id, ifMatch);
         taskToUpdate.setName(dto.getName());
         taskToUpdate.setDescription(dto.getDescription());
-        taskToUpdate.setTaskStatus(taskStatusRepository.findById(dto.getTaskStatusId()).get());
-        taskToUpdate.setAuthor(userService.getCurrentUser());
-        taskToUpdate.setExecutor(userRepository.findById(dto.getExecutorId()).get());
-        if (dto.getLabelIds() != null) {
-            taskToUpdate.setLabels(getLabelsByIds(dto));
+        setReferences(taskToUpdate, dto);
+        final Task savedTask = reload(taskRepository.save(taskToUpdate));
+        eventPublisher.publishEvent(new TaskEvent(UPDATED, savedTask));
+        return savedTask;
+    }
+
+    // The row lock holds off other updates from the check until this transaction commits,
+    // so the task written is the one the precondition was checked against.
+    private Task lockIfMatches(long id, String ifMatch) {
+        final Task task = entityManager.find(Task.class, id, LockModeType.PESSIMISTIC_WRITE);
+        if (task == null) {
+            throw new NoSuchElementException("Task not found");
         }
-        return taskRepository.save(taskToUpdate);
+        resourceValidators.checkIfMatch(ifMatch, resourceValidators.task(id));
+        return task;
     }
 
     @Override
-    public Iterable<Task> getFilteredTasks(Map<String, String> requestParams) throws JsonProcessingException {
+    public void deleteTask(long id) {
+        final Task taskToDelete = taskRepository.findById(id).get();
+        taskRepository.delete(taskToDelete);
+        eventPublisher.publishEvent(new TaskEvent(DELETED, taskToDelete));
+    }
 
-        QTask task = QTask.task;
-        BooleanBuilder booleanBuilder = new BooleanBuilder();
-        JPAQueryFactory factory = new JPAQueryFactory(entityManager);
-        JPAQuery<Task> query = factory.selectFrom(task);
+    @Override
+    public int bulkUpdate(TaskFilter filter, TaskBulkUpdateDto dto) {
+        if (dto.getIds() == null && !hasIndexedPredicates(filter) && filter.q() == null) {
+            throw new BadRequestException("Either ids or a filter is required");
+        }
+        if (dto.getIds() != null && dto.getIds().size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(TOO_MANY_TASKS);
+        }
+        String statement = bulkStatement(dto);
 
-        long taskStatusId = getParameter("taskStatus", requestParams);
-        if (taskStatusId > 0) {
-            booleanBuilder.and(task.taskStatus.id.eq(taskStatusId));
+        List<Long> ids = affectedIds(filter, dto.getIds());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(TOO_MANY_TASKS);
         }
+        entityManager.flush();
+        int affected = 0;
+        boolean linksLabels = statement.equals(ADD_LABELS) || statement.equals(REMOVE_LABELS);
+        for (int from = 0; from < ids.size(); from += BULK_UPDATE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_UPDATE_CHUNK, ids.size()));
+            NativeQuery<?> query = bulkQuery(statement, chunk);
+            switch (dto.getOperation()) {
+                case SET_STATUS -> query.setParameter("value", dto.getTaskStatusId());
+                case SET_EXECUTOR -> query.setParameter("value", dto.getExecutorId());
+                default -> query.setParameter("labelIds", dto.getLabelIds());
+            }
+            int chunkAffected = query.executeUpdate();
+            // label links live in their own table, so the owning tasks get a new version explicitly
+            if (chunkAffected > 0 && linksLabels) {
+                bulkQuery(TOUCH_TASKS, chunk).executeUpdate();
+            }
+            affected += chunkAffected;
+        }
+        entityManager.clear();
+        eventPublisher.publishEvent(new TaskBulkEvent(ids, new TaskBulkUpdateDto(null, dto.getOperation(),
+                dto.getTaskStatusId(), dto.getExecutorId(), dto.getLabelIds())));
+        return affected;
+    }
+
+    private NativeQuery<?> bulkQuery(String statement, List<Long> ids) {
+        return entityManager.createNativeQuery(statement)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("tasks")
+                .addSynchronizedQuerySpace("tasks_labels")
+                .setParameter("ids", ids);
+    }
 
-        long executorId = getParameter("executorId", requestParams);
-        if (executorId > 0) {
-            booleanBuilder.and(task.executor.id.eq(executorId));
+    private String bulkStatement(TaskBulkUpdateDto dto) {
+        switch (dto.getOperation()) {
+            case SET_STATUS -> {
+                if (dto.getTaskStatusId() == null || !taskStatusRepository.existsById(dto.getTaskStatusId())) {
+                    throw new NoSuchElementException("Task status not found");
+                }
+                return SET_STATUS;
+            }
+            case SET_EXECUTOR -> {
+                if (dto.getExecutorId() == null || !userRepository.existsById(dto.getExecutorId())) {
+                    throw new NoSuchElementException("Executor not found");
+                }
+                return SET_EXECUTOR;
+            }
+            default -> {
+                if (dto.getLabelIds() == null || dto.getLabelIds().isEmpty()) {
+                    throw new BadRequestException("labelIds are required");
+                }
+                if (labelRepository.findAllById(dto.getLabelIds()).size() != dto.getLabelIds().size()) {
+                    throw new NoSuchElementException("Label not found");
+                }
+                return dto.getOperation() == TaskBulkUpdateDto.Operation.ADD_LABELS ? ADD_LABELS : REMOVE_LABELS;
+            }
         }
+    }
 
-        long authorId = getParameter("authorId", requestParams);
-        if (authorId > 0) {
-            booleanBuilder.and(task.author.id.eq(authorId));
+    private List<Long> affectedIds(TaskFilter filter, List<Long> requestedIds) {
+        List<Long> candidates = matchingIds(filter);
+        if (requestedIds != null) {
+            Set<Long> requested = idsOf(requestedIds.stream());
+            candidates = candidates == null
+                    ? List.copyOf(requested)
+                    : candidates.stream().filter(requested::contains).toList();
+        }
+        if (candidates == null) {
+            return taskQueryTemplates.createIdsQuery(entityManager, filter, currentUserId(filter), null)
+                    .setMaxResults(MAX_BATCH_SIZE + 1)
+                    .getResultList();
         }
 
-        if (requestParams.get("labels") != null) {
-            ObjectMapper objectMapper = new ObjectMapper()
-                    .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
-            List<Long> labelIds = Arrays.asList(
-                    objectMapper.readValue(requestParams.get("labels"), Long[].class)
-            );
-            booleanBuilder.and(task.labels.any().id.in(labelIds));
+        List<Long> ids = new ArrayList<>();
+        for (int from = 0; from < candidates.size() && ids.size() <= MAX_BATCH_SIZE; from += BULK_UPDATE_CHUNK) {
+            ids.addAll(taskQueryTemplates.createIdsQuery(entityManager, filter, currentUserId(filter),
+                            candidates.subList(from, Math.min(from + BULK_UPDATE_CHUNK, candidates.size())))
+                    .getResultList());
         }
+        return ids;
+    }
 
-        if (requestParams.get("isMyTasks") != null && requestParams.get("isMyTasks").equals("true")) {
-            long currentUserId = userService.getCurrentUser().getId();
-            booleanBuilder.and(task.author.id.eq(currentUserId));
+    @Override
+    public Iterable<Task> getFilteredTasks(TaskFilter filter) {
+        List<Long> matchingIds = matchingIds(filter);
+        if (matchingIds != null && matchingIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Task> tasks = taskQueryTemplates
+                .createQuery(entityManager, LIST, filter, currentUserId(filter), null, boundIds(matchingIds))
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+
+        if (filter.q() != null) {
+            Map<Long, Integer> ranks = ranks(matchingIds);
+            return tasks.stream()
+                    .filter(task -> ranks.containsKey(task.getId()))
+                    .sorted(Comparator.comparing(task -> ranks.get(task.getId())))
+                    .toList();
+        }
+        return tasks;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getFilteredTaskFields(TaskFilter filter, String fields) {
+        FieldProjections.Selection selection = fieldProjections.select(FieldProjections.TASK_FIELDS, fields);
+        List<Long> matchingIds = matchingIds(filter);
+        if (matchingIds != null && matchingIds.isEmpty()) {
+            return List.of();
         }
 
-        if (!booleanBuilder.hasValue()) {
-            return taskRepository.findAll();
+        List<Tuple> rows = taskQueryTemplates.createProjectionQuery(entityManager, selection.main().jpql(), filter,
+                        currentUserId(filter), boundIds(matchingIds))
+                .getResultList();
+
+        if (filter.q() != null) {
+            Map<Long, Integer> ranks = ranks(matchingIds);
+            rows = rows.stream()
+                    .filter(row -> ranks.containsKey((Long) row.get(0)))
+                    .sorted(Comparator.comparing(row -> ranks.get((Long) row.get(0))))
+                    .toList();
         }
+        return fieldProjections.toMaps(selection, rows);
+    }
 
-        return query
-                .where(booleanBuilder)
-                .fetch();
+    private static Map<Long, Integer> ranks(List<Long> ids) {
+        Map<Long, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            ranks.put(ids.get(i), i);
+        }
+        return ranks;
     }
 
-    private long getParameter(String paramName, Map<String, String> requestParams) {
-        return Long.parseLong(Optional.ofNullable(
-                requestParams.get(paramName)
-        ).orElseGet(() -> "-1"));
+    @Override
+    @Transactional(readOnly = true)
+    public TaskFacets getTaskFacets(TaskFilter filter) {
+        if (taskBitmapIndex.isEmpty() || !taskBitmapIndex.get().isComplete()) {
+            long[] searchIds = searchMatches(filter);
+            return countFacets(filter, searchIds == null ? null : boxed(searchIds));
+        }
+
+        // tasks changed since the index caught up are counted by the database, the rest from the bitmaps
+        TaskBitmapIndex index = taskBitmapIndex.get();
+        List<Long> changedIds = index.changedSinceIndexed();
+        RoaringBitmap tasks = index.match(filter, currentUserId(filter));
+        long[] searchIds = searchMatches(filter);
+        if (searchIds != null) {
+            RoaringBitmap matches = new RoaringBitmap();
+            for (long id : searchIds) {
+                if (TaskBitmapIndex.fits(id)) {
+                    matches.add((int) id);
+                }
+            }
+            tasks.and(matches);
+            long[] sortedIds = sorted(searchIds);
+            changedIds = changedIds.stream().filter(id -> Arrays.binarySearch(sortedIds, id) >= 0).toList();
+        }
+        changedIds.stream().filter(TaskBitmapIndex::fits).forEach(id -> tasks.remove(id.intValue()));
+        TaskFacets facets = index.facets(tasks);
+        return changedIds.isEmpty() ? facets : facets.plus(countFacets(filter, changedIds));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TaskFacets countFacets(TaskFilter filter, List<Long> matchingIds) {
+        if (matchingIds != null && matchingIds.isEmpty()) {
+            return TaskFacets.EMPTY;
+        }
+
+        List<Long> ids = boundIds(matchingIds);
+        if (ids != null || matchingIds == null) {
+            return TaskFacets.fromRows(taskQueryTemplates
+                    .createFacetsQuery(entityManager, filter, currentUserId(filter), ids)
+                    .getResultList());
+        }
+
+        // the database filters, the matches are picked from its rows while counting
+        long[] matches = sorted(matchingIds);
+        try (Stream<Object[]> rows = taskQueryTemplates
+                .createFacetRowsQuery(entityManager, filter, currentUserId(filter))
+                .setHint(QueryHints.HINT_FETCH_SIZE, streamFetchSize)
+                .getResultStream()) {
+            return TaskFacets.fromTaskRows(rows
+                    .filter(row -> Arrays.binarySearch(matches, ((Number) row[0]).longValue()) >= 0));
+        }
+    }
+
+    @Override
+    public TaskPage getTasksPage(TaskFilter filter, String after, int limit) {
+        TaskCursor cursor = after == null ? null : TaskCursor.decode(after);
+        int pageSize = pageSize(limit);
+        List<Task> tasks;
+        if (filter.q() == null) {
+            List<Long> matchingIds = matchingIds(filter);
+            tasks = matchingIds != null && matchingIds.isEmpty()
+                    ? List.of()
+                    : pageQuery(filter, cursor, matchingIds, pageSize + 1);
+        } else {
+            tasks = searchPage(filter, cursor, pageSize + 1);
+        }
+
+        if (tasks.size() <= pageSize) {
+            fetchLabels(tasks);
+            return new TaskPage(tasks, null);
+        }
+
+        List<Task> content = tasks.subList(0, pageSize);
+        fetchLabels(content);
+        Task last = content.get(pageSize - 1);
+        return new TaskPage(content, new TaskCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    // Matches come from the search index in windows of creation time, each checked by one query, until the page
+    // is full. The first window is as large as the page, so a page of a search mostly takes a single query.
+    private List<Task> searchPage(TaskFilter filter, TaskCursor cursor, int size) {
+        List<Task> tasks = new ArrayList<>();
+        long from = cursor == null ? Long.MIN_VALUE : cursor.createdAt().getTime();
+        int windowSize = size;
+        while (tasks.size() < size) {
+            TaskSearchIndex.Window window = taskSearchIndex.searchFrom(filter.q(), from, windowSize);
+            if (!window.ids().isEmpty()) {
+                tasks.addAll(pageQuery(filter, cursor, window.ids(), size - tasks.size()));
+            }
+            if (window.last()) {
+                break;
+            }
+            from = window.next();
+            windowSize = Math.min(windowSize * 2, Math.max(size, ID_CHUNK));
+        }
+        return tasks;
+    }
+
+    private List<Task> pageQuery(TaskFilter filter, TaskCursor cursor, List<Long> ids, int size) {
+        return taskQueryTemplates.createQuery(entityManager, PAGE, filter, currentUserId(filter), cursor, ids)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TaskChanges getTaskChanges(String since, int limit) {
+        ChangeCursor cursor = since == null ? ChangeCursor.START : ChangeCursor.decode(since);
+        int pageSize = pageSize(limit);
+        List<TaskChangeLog.Change> changes = taskChangeLog.changesAfter(cursor, pageSize + 1);
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+        if (changes.isEmpty()) {
+            return new TaskChanges(List.of(), List.of(), cursor.encode(), false);
+        }
+
+        List<Long> changedIds = changes.stream()
+                .filter(change -> !change.deleted())
+                .map(TaskChangeLog.Change::taskId)
+                .toList();
+        List<Long> deletedIds = changes.stream()
+                .filter(TaskChangeLog.Change::deleted)
+                .map(TaskChangeLog.Change::taskId)
+                .toList();
+        List<Task> changed = changedIds.isEmpty() ? List.of() : taskQueryTemplates
+                .createQuery(entityManager, LIST, TaskFilter.EMPTY, null, null, changedIds)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+        TaskChangeLog.Change last = changes.get(changes.size() - 1);
+        return new TaskChanges(changed, deletedIds, new ChangeCursor(last.seq(), last.taskId()).encode(), hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamFilteredTasks(TaskFilter filter, Consumer<Task> consumer) {
+        List<Long> matchingIds = matchingIds(filter);
+        if (matchingIds != null && matchingIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = boundIds(matchingIds);
+        long[] matches = ids == null && matchingIds != null ? sorted(matchingIds) : null;
+        try (Stream<Task> tasks = taskQueryTemplates
+                .createQuery(entityManager, STREAM, filter, currentUserId(filter), null, ids)
+                .setHint(QueryHints.HINT_FETCH_SIZE, streamFetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            tasks.forEach(streamedTask -> {
+                if (matches == null || Arrays.binarySearch(matches, streamedTask.getId()) >= 0) {
+                    consumer.accept(streamedTask);
+                }
+                entityManager.detach(streamedTask);
+            });
+        }
+    }
+
+    // larger pages are cut to the maximum size
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // Search matches are not capped. Up to a chunk of them is bound to the query, more leave the query
+    // unrestricted by id and are picked from its rows, so every read is a single query.
+    private static List<Long> boundIds(List<Long> ids) {
+        return ids == null || ids.size() > ID_CHUNK ? null : ids;
+    }
+
+    private static long[] sorted(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static long[] sorted(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    // The bitmap index only prunes candidates, the queries check the filter on them. It may miss changes
+    // made since it caught up, so the tasks changed after that are candidates too.
+    private List<Long> matchingIds(TaskFilter filter) {
+        long[] searchMatches = searchMatches(filter);
+        List<Long> searchIds = searchMatches == null ? null : boxed(searchMatches);
+        if (taskBitmapIndex.isEmpty() || !hasIndexedPredicates(filter) || !taskBitmapIndex.get().isComplete()) {
+            return searchIds;
+        }
+
+        TaskBitmapIndex index = taskBitmapIndex.get();
+        Set<Long> changedIds = new HashSet<>(index.changedSinceIndexed());
+        RoaringBitmap ids = index.match(filter, currentUserId(filter));
+        if (searchIds != null) {
+            return searchIds.stream()
+                    .filter(id -> TaskBitmapIndex.fits(id) && ids.contains(id.intValue()) || changedIds.contains(id))
+                    .toList();
+        }
+        changedIds.stream().filter(TaskBitmapIndex::fits).forEach(id -> ids.add(id.intValue()));
+        changedIds.removeIf(TaskBitmapIndex::fits);
+        if (ids.getCardinality() + changedIds.size() > MAX_BITMAP_MATCHES) {
+            return null;
+        }
+        List<Long> candidates = new ArrayList<>(ids.getCardinality() + changedIds.size());
+        ids.forEach((int id) -> candidates.add((long) id));
+        candidates.addAll(changedIds);
+        return candidates;
+    }
+
+    private static boolean hasIndexedPredicates(TaskFilter filter) {
+        return filter.taskStatus() != null
+                || filter.executorId() != null
+                || filter.authorId() != null
+                || !filter.labels().isEmpty()
+                || filter.isMyTasks();
+    }
+
+    private long[] searchMatches(TaskFilter filter) {
+        return filter.q() == null ? null : taskSearchIndex.search(filter.q());
+    }
+
+    private Long currentUserId(TaskFilter filter) {
+        return filter.isMyTasks() ? userService.getCurrentUserId() : null;
+    }
+
+    private void fetchLabels(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        entityManager.createQuery(LABELS_OF_TASKS, Task.class)
+                .setParameter("ids", tasks.stream().map(Task::getId).toList())
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
     }
 }
@@ -1,30 +1,74 @@
 package hexlet.code.service.implementation;
 
+import hexlet.code.component.CacheEvictions;
 import hexlet.code.dto.TaskStatusDto;
+import hexlet.code.event.TaskStatusEvent;
 import hexlet.code.model.TaskStatus;
 import hexlet.code.repository.TaskStatusRepository;
 import hexlet.code.service.TaskStatusService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+import static hexlet.code.config.CacheConfiguration.TASK_STATUSES;
+import static hexlet.code.config.CacheConfiguration.TASK_STATUS_LISTS;
+import static hexlet.code.event.ChangeType.CREATED;
+import static hexlet.code.event.ChangeType.DELETED;
+import static hexlet.code.event.ChangeType.UPDATED;
+
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class TaskStatusServiceImpl implements TaskStatusService {
     private final TaskStatusRepository taskStatusRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheEvictions cacheEvictions;
+
+    @Override
+    @Cacheable(TASK_STATUSES)
+    @Transactional(readOnly = true)
+    public TaskStatus getStatus(long id) {
+        return taskStatusRepository.findById(id).get();
+    }
+
+    @Override
+    @Cacheable(TASK_STATUS_LISTS)
+    @Transactional(readOnly = true)
+    public List<TaskStatus> getAllStatuses() {
+        return List.copyOf(taskStatusRepository.findAll());
+    }
 
     @Override
     public TaskStatus createStatus(TaskStatusDto dto) {
         final TaskStatus taskStatus = new TaskStatus();
         taskStatus.setName(dto.getName());
-        return taskStatusRepository.save(taskStatus);
+        final TaskStatus savedStatus = taskStatusRepository.save(taskStatus);
+        eventPublisher.publishEvent(new TaskStatusEvent(CREATED, savedStatus));
+        cacheEvictions.clear(TASK_STATUS_LISTS);
+        return savedStatus;
     }
 
     @Override
     public TaskStatus updateStatus(long id, TaskStatusDto dto) {
         final TaskStatus taskStatusToUpdate = taskStatusRepository.findById(id).get();
         taskStatusToUpdate.setName(dto.getName());
-        return taskStatusRepository.save(taskStatusToUpdate);
+        final TaskStatus savedStatus = taskStatusRepository.save(taskStatusToUpdate);
+        eventPublisher.publishEvent(new TaskStatusEvent(UPDATED, savedStatus));
+        cacheEvictions.evict(TASK_STATUSES, id);
+        cacheEvictions.clear(TASK_STATUS_LISTS);
+        return savedStatus;
+    }
+
+    @Override
+    public void deleteStatus(long id) {
+        final TaskStatus statusToDelete = taskStatusRepository.findById(id).get();
+        taskStatusRepository.delete(statusToDelete);
+        eventPublisher.publishEvent(new TaskStatusEvent(DELETED, statusToDelete));
+        cacheEvictions.evict(TASK_STATUSES, id);
+        cacheEvictions.clear(TASK_STATUS_LISTS);
     }
 }
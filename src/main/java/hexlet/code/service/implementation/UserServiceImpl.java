@@ -1,10 +1,14 @@
 package hexlet.code.service.implementation;
 
+import hexlet.code.component.CacheEvictions;
+import hexlet.code.component.ChangeCounters;
+import hexlet.code.config.security.UserPrincipal;
 import hexlet.code.dto.UserDto;
 import hexlet.code.model.User;
 import hexlet.code.repository.UserRepository;
 import hexlet.code.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -13,7 +17,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import static hexlet.code.config.security.SecurityConfig.DEFAULT_AUTHORITIES;
+import static hexlet.code.component.ResourceValidators.USERS;
+import static hexlet.code.config.CacheConfiguration.TOKEN_VERSIONS;
 
 @Service
 @Transactional
@@ -22,6 +27,8 @@ public class UserServiceImpl implements UserService, UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheEvictions cacheEvictions;
+    private final ChangeCounters changeCounters;
 
     @Override
     public User createNewUser(UserDto dto) {
@@ -30,16 +37,27 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         user.setLastName(dto.getLastName());
         user.setEmail(dto.getEmail());
         user.setPassword(passwordEncoder.encode(dto.getPassword()));
+        changeCounters.changed(USERS);
         return userRepository.save(user);
     }
 
     @Override
     public User updateUser(long id, UserDto dto) {
         final User userToUpdate = userRepository.findById(id).get();
+        final boolean emailChanged = !userToUpdate.getEmail().equals(dto.getEmail());
+        final boolean passwordChanged = !passwordEncoder.matches(dto.getPassword(), userToUpdate.getPassword());
         userToUpdate.setEmail(dto.getEmail());
         userToUpdate.setFirstName(dto.getFirstName());
         userToUpdate.setLastName(dto.getLastName());
-        userToUpdate.setPassword(passwordEncoder.encode(dto.getPassword()));
+        if (passwordChanged) {
+            userToUpdate.setPassword(passwordEncoder.encode(dto.getPassword()));
+        }
+        // issued tokens stay valid unless the credentials they were issued for change
+        if (emailChanged || passwordChanged) {
+            userToUpdate.setTokenVersion(userToUpdate.getTokenVersion() + 1);
+            cacheEvictions.evict(TOKEN_VERSIONS, id);
+        }
+        changeCounters.changed(USERS);
         return userRepository.save(userToUpdate);
     }
 
@@ -50,7 +68,33 @@ public class UserServiceImpl implements UserService, UserDetailsService {
 
     @Override
     public User getCurrentUser() {
-        return userRepository.findByEmail(getCurrentUserName()).get();
+        return userRepository.findById(getCurrentUserId()).get();
+    }
+
+    @Override
+    public long getCurrentUserId() {
+        return ((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getId();
+    }
+
+    /**
+     * Current token version of the user, tokens issued with an older one are rejected.
+     *
+     * @param id user id
+     * @return token version, or null if the user does not exist
+     */
+    @Override
+    @Cacheable(TOKEN_VERSIONS)
+    @Transactional(readOnly = true)
+    public Integer getTokenVersion(long id) {
+        return userRepository.findTokenVersionById(id).orElse(null);
+    }
+
+    @Override
+    public void deleteUser(long id) {
+        userRepository.deleteById(id);
+        userRepository.flush();
+        cacheEvictions.evict(TOKEN_VERSIONS, id);
+        changeCounters.changed(USERS);
     }
 
     @Override
@@ -61,10 +105,11 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     private UserDetails buildSpringUser(User user) {
-        return new org.springframework.security.core.userdetails.User(
+        return new UserPrincipal(
+                user.getId(),
                 user.getEmail(),
                 user.getPassword(),
-                DEFAULT_AUTHORITIES
+                user.getTokenVersion()
         );
     }
 }
@@ -10,7 +10,9 @@ import hexlet.code.model.Label;
 import hexlet.code.repository.LabelRepository;
 import hexlet.code.repository.TaskStatusRepository;
 import hexlet.code.repository.UserRepository;
+import hexlet.code.service.LabelService;
 import hexlet.code.utils.TestUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,10 +23,14 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import static hexlet.code.config.CacheConfiguration.LABEL_LISTS;
 import static hexlet.code.controller.LabelController.LABEL_CONTROLLER_PATH;
 import static hexlet.code.controller.TaskController.TASK_CONTROLLER_PATH;
 import static hexlet.code.controller.TaskStatusController.STATUS_CONTROLLER_PATH;
@@ -64,6 +70,15 @@ public class LabelControllerTest {
     @Autowired
     private TaskStatusRepository taskStatusRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LabelService labelService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @BeforeEach
     public void initialization() throws Exception {
         utils.setUp();
@@ -97,6 +112,34 @@ public class LabelControllerTest {
         assertThat(actualLabel.getName()).isEqualTo(expectedLabel.getName());
     }
 
+    @Test
+    public void getLabelFields() throws Exception {
+        utils.regEntity(sampleLabel, existingUserEmail, LABEL_CONTROLLER_PATH);
+        utils.regEntity(anotherLabel, existingUserEmail, LABEL_CONTROLLER_PATH);
+        long labelId = labelRepository.findAll().get(0).getId();
+
+        MockHttpServletResponse response = utils.perform(
+                        get(BASE_URL + LABEL_CONTROLLER_PATH).param("fields", "name"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        List<Map<String, Object>> labels = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(labels).containsExactly(Map.of("name", "Sample label"), Map.of("name", "Another label"));
+
+        response = utils.perform(get(BASE_URL + LABEL_CONTROLLER_PATH + ID, labelId)
+                        .param("fields", "id"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        Map<String, Object> label = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(label).containsOnlyKeys("id");
+
+        utils.perform(get(BASE_URL + LABEL_CONTROLLER_PATH).param("fields", "name,color"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getAllLabels() throws Exception {
         utils.regEntity(sampleLabel, existingUserEmail, LABEL_CONTROLLER_PATH);
@@ -114,6 +157,68 @@ public class LabelControllerTest {
         assertThat((long) labels.size()).isEqualTo(expectedCount);
     }
 
+    @Test
+    public void getAllLabelsFromCacheUntilUpdate() throws Exception {
+        utils.regEntity(sampleLabel, existingUserEmail, LABEL_CONTROLLER_PATH);
+        long labelId = labelRepository.findAll().get(0).getId();
+        double hitsBefore = cacheHits(LABEL_LISTS);
+
+        utils.perform(get(BASE_URL + LABEL_CONTROLLER_PATH), existingUserEmail).andExpect(status().isOk());
+        utils.perform(get(BASE_URL + LABEL_CONTROLLER_PATH), existingUserEmail).andExpect(status().isOk());
+        assertThat(cacheHits(LABEL_LISTS)).isEqualTo(hitsBefore + 1);
+
+        utils.perform(put(BASE_URL + LABEL_CONTROLLER_PATH + ID, labelId)
+                .content(asJson(anotherLabel))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+
+        MockHttpServletResponse response = utils.perform(
+                        get(BASE_URL + LABEL_CONTROLLER_PATH), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Label> labels = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(labels).extracting(Label::getName).containsExactly(anotherLabel.getName());
+    }
+
+    @Test
+    public void labelReadBeforeUpdateCommitNotCached() throws Exception {
+        utils.regEntity(sampleLabel, existingUserEmail, LABEL_CONTROLLER_PATH);
+        long labelId = labelRepository.findAll().get(0).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            labelService.updateLabel(labelId, anotherLabel);
+            // a request running meanwhile reads and caches the committed label
+            assertThat(CompletableFuture.supplyAsync(() -> labelService.getLabel(labelId)).join().getName())
+                    .isEqualTo(sampleLabel.getName());
+        });
+
+        assertThat(labelService.getLabel(labelId).getName()).isEqualTo(anotherLabel.getName());
+    }
+
+    @Test
+    public void getAllLabelsOnDatabaseReadExecutor() throws Exception {
+        utils.regEntity(sampleLabel, existingUserEmail, LABEL_CONTROLLER_PATH);
+        long readsBefore = meterRegistry.timer("db.reads", "endpoint", "labels").count();
+
+        MockHttpServletResponse response = utils.perform(
+                        get(BASE_URL + LABEL_CONTROLLER_PATH), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Label> labels = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(labels).extracting(Label::getName).containsExactly(sampleLabel.getName());
+        assertThat(meterRegistry.timer("db.reads", "endpoint", "labels").count()).isEqualTo(readsBefore + 1);
+        assertThat(meterRegistry.get("executor.queued").tag("name", "dbReads").gauge().value()).isZero();
+    }
+
+    private double cacheHits(String cacheName) {
+        return meterRegistry.get("cache.gets").tag("name", cacheName).tag("result", "hit").functionCounter().count();
+    }
+
     @Test
     public void twiceRegTheSameLabel() throws Exception {
         utils.regEntity(sampleLabel, existingUserEmail, LABEL_CONTROLLER_PATH);
@@ -1,46 +1,110 @@
 package hexlet.code.controller;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import hexlet.code.component.FieldProjections;
+import hexlet.code.component.OutboxDispatcher;
+import hexlet.code.component.TaskBitmapIndex;
+import hexlet.code.component.TaskChangeLog;
+import hexlet.code.component.TaskEventFeed;
 import hexlet.code.config.SpringConfigForIT;
 import hexlet.code.dto.LabelDto;
+import hexlet.code.dto.TaskBatchError;
+import hexlet.code.dto.TaskBulkUpdateDto;
+import hexlet.code.dto.TaskChanges;
+import hexlet.code.dto.TaskFieldChange;
+import hexlet.code.dto.TaskHistoryEntry;
 import hexlet.code.dto.TaskDto;
+import hexlet.code.dto.TaskPage;
 import hexlet.code.dto.TaskStatusDto;
 import hexlet.code.dto.UserDto;
+import hexlet.code.event.LabelEvent;
+import hexlet.code.event.OutboxEvent;
+import hexlet.code.event.TaskEvent;
+import hexlet.code.model.Label;
 import hexlet.code.model.Task;
+import hexlet.code.model.TaskStatus;
 import hexlet.code.model.User;
 import hexlet.code.repository.LabelRepository;
 import hexlet.code.repository.TaskRepository;
 import hexlet.code.repository.TaskStatusRepository;
 import hexlet.code.repository.UserRepository;
+import hexlet.code.service.UserService;
+import hexlet.code.utils.RecordingOutboxConsumer;
 import hexlet.code.utils.TestUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static hexlet.code.component.FieldProjections.FIELDS;
+import static hexlet.code.component.FieldProjections.TASK_FIELDS;
 import static hexlet.code.controller.LabelController.LABEL_CONTROLLER_PATH;
+import static hexlet.code.controller.TaskController.BATCH;
+import static hexlet.code.controller.TaskController.CHANGES;
+import static hexlet.code.controller.TaskController.EVENTS;
+import static hexlet.code.controller.TaskController.FACETS;
+import static hexlet.code.controller.TaskController.HISTORY;
+import static hexlet.code.controller.TaskController.LAST_EVENT_ID;
 import static hexlet.code.controller.TaskController.TASK_CONTROLLER_PATH;
 import static hexlet.code.controller.TaskStatusController.STATUS_CONTROLLER_PATH;
 import static hexlet.code.controller.UserController.USER_CONTROLLER_PATH;
 import static hexlet.code.controller.UserController.ID;
+import static hexlet.code.event.ChangeType.CREATED;
+import static hexlet.code.event.ChangeType.UPDATED;
 import static hexlet.code.utils.TestUtils.BASE_URL;
 import static hexlet.code.utils.TestUtils.asJson;
 import static hexlet.code.utils.TestUtils.fromJson;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -53,6 +117,23 @@ public class TaskControllerTest {
     private final UserDto anotherUserDto = UserControllerTest.getAnotherUserDto();
     private static String existingUserEmail;
     private static TaskDto sampleTaskDto;
+    private static final int TASKS_IN_LIST = 1000;
+    private static final int TASKS_IN_BATCH = 2500;
+    private static final int TASKS_IN_PAGE = 10;
+    private static final int CONCURRENT_UPDATES = 4;
+    // the tasks and, for a page, their labels
+    private static final int MAX_STATEMENTS_PER_SEARCH = 2;
+    private static final int MAX_STATEMENTS_TO_SAVE_LIST = 100;
+    private static final int LABELS_PER_TASK = 3;
+    private static final int MAX_STATEMENTS_PER_CREATE = 6;
+    private static final int MAX_STATEMENTS_PER_UPDATE = 4;
+    private static final long EVENT_TIMEOUT_MS = 5000;
+    private static final int STALLED_SUBSCRIBERS = 3;
+    private static final int MAX_STALLING_BATCHES = 100;
+    private static final int STALLING_BATCH_SIZE = 100;
+    private static final String LONG_DESCRIPTION = "x".repeat(255);
+    private static final long ID_BEYOND_INT = 3_000_000_000L;
+    private static final Pattern EVENT_ID = Pattern.compile("^id:(\\w+)-(\\d+)$", Pattern.MULTILINE);
 
     @Autowired
     private TaskRepository taskRepository;
@@ -69,6 +150,39 @@ public class TaskControllerTest {
     @Autowired
     private TestUtils utils;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private FieldProjections fieldProjections;
+
+    @Autowired
+    private RecordingOutboxConsumer outboxConsumer;
+
+    @Autowired
+    private TaskBitmapIndex taskBitmapIndex;
+
+    @Autowired
+    private TaskChangeLog taskChangeLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
     @BeforeEach
     public void initialization() throws Exception {
         utils.setUp();
@@ -113,6 +227,95 @@ public class TaskControllerTest {
         assertThat(task.getName()).isEqualTo(expectedTask.getName());
     }
 
+    @Test
+    public void getTaskByIdFromSecondLevelCache() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        long taskId = taskRepository.findAll().get(0).getId();
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId), existingUserEmail)
+                .andExpect(status().isOk());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId), existingUserEmail)
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void getTaskNotModifiedUntilItsLabelChanges() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        long taskId = taskRepository.findAll().get(0).getId();
+        long labelId = labelRepository.findAll().get(0).getId();
+        String etag = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId).header(IF_NONE_MATCH, etag), existingUserEmail)
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        utils.perform(put(BASE_URL + LABEL_CONTROLLER_PATH + ID, labelId)
+                .content(asJson(new LabelDto("Renamed label")))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId).header(IF_NONE_MATCH, etag), existingUserEmail)
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getAllTasksNotModifiedUntilTaskCreated() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        String etag = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).header(IF_NONE_MATCH, etag), existingUserEmail)
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        sampleTaskDto.setName("Another task name");
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).header(IF_NONE_MATCH, etag), existingUserEmail)
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getAllTasksModifiedByLabelRenameAndTaskDelete() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        long taskId = taskRepository.findAll().get(0).getId();
+        long labelId = labelRepository.findAll().get(0).getId();
+        String etag = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH), existingUserEmail)
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).header(IF_NONE_MATCH, etag), existingUserEmail)
+                .andExpect(status().isNotModified());
+
+        utils.perform(put(BASE_URL + LABEL_CONTROLLER_PATH + ID, labelId)
+                .content(asJson(new LabelDto("Renamed label")))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+        String renamedEtag = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).header(IF_NONE_MATCH, etag),
+                        existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+
+        utils.perform(delete(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId), existingUserEmail)
+                .andExpect(status().isOk());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).header(IF_NONE_MATCH, renamedEtag), existingUserEmail)
+                .andExpect(status().isOk());
+    }
+
     @Test
     public void getAllTasks() throws Exception {
         utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
@@ -133,6 +336,791 @@ public class TaskControllerTest {
         assertThat((long) tasks.size()).isEqualTo(expectedCount);
     }
 
+    @Test
+    public void getTaskFieldsWithQueryProjection() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        TaskDto anotherTaskDto = new TaskDto();
+        anotherTaskDto.setName("Another task name");
+        anotherTaskDto.setTaskStatusId(sampleTaskDto.getTaskStatusId());
+        utils.regEntity(anotherTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+
+        assertThat(fieldProjections.select(TASK_FIELDS, "name,executor.firstName").main().jpql())
+                .isEqualTo("select t.id, t.name, t.executor.id, e.firstName from Task t left join t.executor e");
+
+        MockHttpServletResponse response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("fields", "id,name,taskStatus.name,executor.firstName"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        List<Map<String, Object>> tasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(tasks).hasSize(2);
+        assertThat(tasks.get(0)).containsOnlyKeys("id", "name", "taskStatus", "executor");
+        assertThat(tasks.get(0).get("taskStatus")).isEqualTo(Map.of("name", "Sample status"));
+        assertThat(tasks.get(0).get("executor")).isEqualTo(Map.of("firstName", sampleUserDto.getFirstName()));
+        assertThat(tasks.get(1).get("executor")).isNull();
+
+        long taskId = taskRepository.findByName(sampleTaskDto.getName()).get().getId();
+        response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                        .param("fields", "labels.name"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        Map<String, Object> task = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(task).isEqualTo(Map.of("labels", List.of(Map.of("name", "Sample label"))));
+
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).param("fields", "author.password"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getMyTasksByLabelArray() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        utils.regEntity(anotherUserDto, USER_CONTROLLER_PATH);
+        TaskDto anotherTaskDto = new TaskDto();
+        anotherTaskDto.setName("Another task name");
+        anotherTaskDto.setTaskStatusId(sampleTaskDto.getTaskStatusId());
+        anotherTaskDto.setExecutorId(sampleTaskDto.getExecutorId());
+        anotherTaskDto.setLabelIds(sampleTaskDto.getLabelIds());
+        utils.regEntity(anotherTaskDto, anotherUserDto.getEmail(), TASK_CONTROLLER_PATH);
+        long labelId = sampleTaskDto.getLabelIds().iterator().next();
+
+        MockHttpServletResponse response = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("labels", "[" + labelId + "]")
+                        .param("isMyTasks", "true"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Task> tasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(tasks).hasSize(1);
+        assertThat(tasks.get(0).getName()).isEqualTo(sampleTaskDto.getName());
+    }
+
+    @Test
+    public void searchTasks() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        TaskDto anotherTaskDto = new TaskDto();
+        anotherTaskDto.setName("Another task name");
+        anotherTaskDto.setDescription("Mentions sample only in description");
+        anotherTaskDto.setTaskStatusId(sampleTaskDto.getTaskStatusId());
+        anotherTaskDto.setExecutorId(sampleTaskDto.getExecutorId());
+        utils.regEntity(anotherTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+
+        MockHttpServletResponse response = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH).param("q", "SAMP"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Task> tasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(tasks).extracting(Task::getName)
+                .containsExactly(sampleTaskDto.getName(), anotherTaskDto.getName());
+
+        MockHttpServletResponse filteredResponse = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("q", "sample descr")
+                        .param("labels", sampleTaskDto.getLabelIds().iterator().next() + ""), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Task> filteredTasks = fromJson(filteredResponse.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(filteredTasks).extracting(Task::getName).containsExactly(sampleTaskDto.getName());
+    }
+
+    @Test
+    public void searchTasksReturnsAllMatches() throws Exception {
+        List<TaskDto> taskDtos = new ArrayList<>();
+        for (int i = 0; i < TASKS_IN_BATCH; i++) {
+            taskDtos.add(new TaskDto("Batch task " + i, "Batch description", sampleTaskDto.getTaskStatusId(),
+                    sampleTaskDto.getExecutorId(), sampleTaskDto.getLabelIds()));
+        }
+        utils.perform(post(BASE_URL + TASK_CONTROLLER_PATH + BATCH)
+                        .content(asJson(taskDtos))
+                        .contentType(APPLICATION_JSON), existingUserEmail)
+                .andExpect(status().isCreated());
+
+        MockHttpServletResponse response = utils.perform(
+                        get(BASE_URL + TASK_CONTROLLER_PATH).param("q", "batch"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        List<Task> tasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(tasks).hasSize(TASKS_IN_BATCH);
+
+        Set<Long> pagedIds = new HashSet<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get(BASE_URL + TASK_CONTROLLER_PATH)
+                    .param("q", "batch")
+                    .param("limit", String.valueOf(TASKS_IN_LIST));
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            TaskPage page = fromJson(utils.perform(request, existingUserEmail)
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString(), new TypeReference<>() {
+                    });
+            page.getContent().forEach(task -> assertThat(pagedIds.add(task.getId())).isTrue());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertThat(pagedIds).hasSize(TASKS_IN_BATCH);
+
+        MockHttpServletResponse facetsResponse = utils.perform(
+                        get(BASE_URL + TASK_CONTROLLER_PATH + FACETS).param("q", "batch"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        Map<String, Map<Long, Long>> facets = fromJson(facetsResponse.getContentAsString(),
+                new TypeReference<>() {
+                });
+        assertThat(facets.get("taskStatus"))
+                .containsExactly(Map.entry(sampleTaskDto.getTaskStatusId(), (long) TASKS_IN_BATCH));
+    }
+
+    @Test
+    public void searchTasksTakesOneQueryPerRead() throws Exception {
+        List<TaskDto> taskDtos = new ArrayList<>();
+        for (int i = 0; i < TASKS_IN_BATCH; i++) {
+            taskDtos.add(new TaskDto("Batch task " + i, "Batch description", sampleTaskDto.getTaskStatusId(),
+                    sampleTaskDto.getExecutorId(), sampleTaskDto.getLabelIds()));
+        }
+        utils.perform(post(BASE_URL + TASK_CONTROLLER_PATH + BATCH)
+                        .content(asJson(taskDtos))
+                        .contentType(APPLICATION_JSON), existingUserEmail)
+                .andExpect(status().isCreated());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).param("q", "batch"), existingUserEmail)
+                .andExpect(status().isOk());
+        long listStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        TaskPage page = fromJson(utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                                .param("q", "batch")
+                                .param("limit", String.valueOf(TASKS_IN_PAGE)), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(), new TypeReference<>() {
+                });
+        long pageStatements = statistics.getPrepareStatementCount();
+
+        assertThat(page.getContent()).hasSize(TASKS_IN_PAGE);
+        assertThat(listStatements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_SEARCH);
+        assertThat(pageStatements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_SEARCH);
+    }
+
+    @Test
+    public void getTasksWithCombinedParameters() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param(FIELDS, "id")
+                        .param("limit", String.valueOf(TASKS_IN_PAGE)), existingUserEmail)
+                .andExpect(status().isBadRequest());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("limit", String.valueOf(TASKS_IN_PAGE))
+                        .param("stream", "true"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+
+        TaskPage page = fromJson(utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                                .param("limit", String.valueOf(TASKS_IN_PAGE))
+                                .param("stream", "false"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(), new TypeReference<>() {
+                });
+        assertThat(page.getContent()).hasSize(1);
+
+        List<Map<String, Object>> rows = fromJson(utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                                .param(FIELDS, "id")
+                                .param("stream", "false"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(), new TypeReference<>() {
+                });
+        assertThat(rows).singleElement().satisfies(row -> assertThat(row).containsOnlyKeys("id"));
+    }
+
+    @Test
+    public void getTasksWithMalformedParameters() throws Exception {
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).param("taskStatus", "abc"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).param("labels", "1,abc"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).param("limit", "abc"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, "abc"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getTasksPage() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        TaskDto anotherTaskDto = new TaskDto();
+        anotherTaskDto.setName("Another task name");
+        anotherTaskDto.setTaskStatusId(sampleTaskDto.getTaskStatusId());
+        anotherTaskDto.setExecutorId(sampleTaskDto.getExecutorId());
+        utils.regEntity(anotherTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+
+        MockHttpServletResponse firstResponse = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH).param("limit", "1"), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        TaskPage firstPage = fromJson(firstResponse.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(firstPage.getContent()).hasSize(1);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        MockHttpServletResponse secondResponse = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("limit", "1")
+                        .param("after", firstPage.getNextCursor()), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        TaskPage secondPage = fromJson(secondResponse.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(secondPage.getContent()).hasSize(1);
+        assertThat(secondPage.getContent().get(0).getId()).isNotEqualTo(firstPage.getContent().get(0).getId());
+        assertThat(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void getTasksPageWithMalformedCursorFail() throws Exception {
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("limit", "1")
+                        .param("after", "not-a-cursor"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH).param("limit", "0"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + CHANGES).param("since", "not-a-cursor"), existingUserEmail)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAllTasksInFixedNumberOfStatements() throws Exception {
+        User author = userRepository.findByEmail(existingUserEmail).get();
+        TaskStatus taskStatus = taskStatusRepository.findAll().get(0);
+        Set<Label> labels = Set.copyOf(labelRepository.findAll());
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS_IN_LIST; i++) {
+            Task task = new Task();
+            task.setName("Task number " + i);
+            task.setTaskStatus(taskStatus);
+            task.setAuthor(author);
+            task.setExecutor(author);
+            task.setLabels(labels);
+            tasks.add(task);
+        }
+        taskRepository.saveAll(tasks);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        MockHttpServletResponse response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Task> listedTasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(listedTasks).hasSize(TASKS_IN_LIST);
+        assertThat(listedTasks.get(0).getLabels()).hasSize(labels.size());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void writeTaskWithFewStatements() throws Exception {
+        for (int i = 0; i < LABELS_PER_TASK - 1; i++) {
+            utils.regEntity(new LabelDto("Label number " + i), existingUserEmail, LABEL_CONTROLLER_PATH);
+        }
+        sampleTaskDto.setLabelIds(Set.copyOf(labelRepository.findAll().stream().map(Label::getId).toList()));
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Statistics statistics = sessionFactory.getStatistics();
+
+        String token = utils.token(existingUserEmail);
+        utils.clearCaches();
+        userService.getTokenVersion(sampleTaskDto.getExecutorId());
+        statistics.clear();
+        utils.perform(post(BASE_URL + TASK_CONTROLLER_PATH)
+                        .header(AUTHORIZATION, token)
+                        .content(asJson(sampleTaskDto))
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        long createStatements = statistics.getPrepareStatementCount();
+
+        long taskId = taskRepository.findByName(sampleTaskDto.getName()).get().getId();
+        sampleTaskDto.setName("Updated task name");
+        utils.clearCaches();
+        userService.getTokenVersion(sampleTaskDto.getExecutorId());
+        statistics.clear();
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                        .header(AUTHORIZATION, token)
+                        .content(asJson(sampleTaskDto))
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk());
+        long updateStatements = statistics.getPrepareStatementCount();
+
+        MockHttpServletResponse response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId),
+                        existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        Task task = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(task.getName()).isEqualTo("Updated task name");
+        assertThat(task.getLabels()).hasSize(LABELS_PER_TASK);
+        assertThat(createStatements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_CREATE);
+        assertThat(updateStatements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_UPDATE);
+    }
+
+    @Test
+    public void saveTasksInJdbcBatches() {
+        User author = userRepository.findByEmail(existingUserEmail).get();
+        TaskStatus taskStatus = taskStatusRepository.findAll().get(0);
+        Set<Label> labels = Set.copyOf(labelRepository.findAll());
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS_IN_LIST; i++) {
+            Task task = new Task();
+            task.setName("Task number " + i);
+            task.setTaskStatus(taskStatus);
+            task.setAuthor(author);
+            task.setLabels(labels);
+            tasks.add(task);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        taskRepository.saveAll(tasks);
+
+        assertThat(taskRepository.count()).isEqualTo(TASKS_IN_LIST);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(MAX_STATEMENTS_TO_SAVE_LIST);
+    }
+
+    @Test
+    public void streamTasksAsNdjson() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        TaskDto anotherTaskDto = new TaskDto();
+        anotherTaskDto.setName("Another task name");
+        anotherTaskDto.setTaskStatusId(sampleTaskDto.getTaskStatusId());
+        anotherTaskDto.setExecutorId(sampleTaskDto.getExecutorId());
+        utils.regEntity(anotherTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+
+        MockHttpServletResponse response = utils.perform(
+                        get(BASE_URL + TASK_CONTROLLER_PATH).accept(APPLICATION_NDJSON), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<String> lines = response.getContentAsString().lines().toList();
+        assertThat(response.getContentType()).isEqualTo(APPLICATION_NDJSON_VALUE);
+        assertThat((long) lines.size()).isEqualTo(taskRepository.count());
+        Task task = fromJson(lines.get(0), new TypeReference<>() {
+        });
+        assertThat(task.getName()).isEqualTo(sampleTaskDto.getName());
+        assertThat(task.getLabels()).hasSize(1);
+    }
+
+    @Test
+    public void streamTasksAsJsonArray() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+
+        MockHttpServletResponse response = utils.perform(
+                        get(BASE_URL + TASK_CONTROLLER_PATH)
+                                .param("stream", "true")
+                                .param("taskStatus", sampleTaskDto.getTaskStatusId() + ""), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Task> tasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(tasks).hasSize(1);
+        assertThat(tasks.get(0).getName()).isEqualTo(sampleTaskDto.getName());
+    }
+
+    @Test
+    public void exchangeTasksAsCbor() throws Exception {
+        CBORMapper cborMapper = new CBORMapper();
+        utils.perform(post(BASE_URL + TASK_CONTROLLER_PATH)
+                        .content(cborMapper.writeValueAsBytes(sampleTaskDto))
+                        .contentType(APPLICATION_CBOR), existingUserEmail)
+                .andExpect(status().isCreated());
+
+        MockHttpServletResponse response = utils.perform(
+                        get(BASE_URL + TASK_CONTROLLER_PATH).accept(APPLICATION_CBOR), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertThat(response.getContentType()).isEqualTo(APPLICATION_CBOR.toString());
+        List<Task> tasks = cborMapper.readValue(response.getContentAsByteArray(), new TypeReference<>() {
+        });
+        assertThat(tasks).hasSize(1);
+        assertThat(tasks.get(0).getName()).isEqualTo(sampleTaskDto.getName());
+        assertThat(tasks.get(0).getLabels()).hasSize(1);
+
+        utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH), existingUserEmail)
+                .andExpect(content().contentType(APPLICATION_JSON));
+    }
+
+    @Test
+    public void syncTaskChangesWithTombstones() throws Exception {
+        TaskChanges initial = getTaskChanges(null);
+        assertThat(initial.getChanged()).isEmpty();
+
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH).andExpect(status().isCreated());
+        sampleTaskDto.setName("Another task name");
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH).andExpect(status().isCreated());
+        TaskChanges created = getTaskChanges(initial.getCursor());
+        assertThat(created.getChanged()).hasSize(2);
+        assertThat(created.getDeleted()).isEmpty();
+
+        long deletedId = created.getChanged().get(0).getId();
+        long updatedId = created.getChanged().get(1).getId();
+        utils.perform(delete(BASE_URL + TASK_CONTROLLER_PATH + ID, deletedId), existingUserEmail)
+                .andExpect(status().isOk());
+        sampleTaskDto.setName("Updated task name");
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, updatedId)
+                .content(asJson(sampleTaskDto))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+
+        TaskChanges changed = getTaskChanges(created.getCursor());
+        assertThat(changed.getChanged()).extracting(Task::getName).containsExactly("Updated task name");
+        assertThat(changed.getDeleted()).containsExactly(deletedId);
+        assertThat(changed.isHasMore()).isFalse();
+
+        TaskChanges unchanged = getTaskChanges(changed.getCursor());
+        assertThat(unchanged.getChanged()).isEmpty();
+        assertThat(unchanged.getDeleted()).isEmpty();
+        assertThat(unchanged.getCursor()).isEqualTo(changed.getCursor());
+    }
+
+    private TaskChanges getTaskChanges(String since) throws Exception {
+        MockHttpServletRequestBuilder request = get(BASE_URL + TASK_CONTROLLER_PATH + CHANGES);
+        if (since != null) {
+            request.param("since", since);
+        }
+        String response = utils.perform(request, existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return fromJson(response, new TypeReference<>() {
+        });
+    }
+
+    @Test
+    public void dispatchChangesThroughOutboxInOrder() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH).andExpect(status().isCreated());
+        long taskId = taskRepository.findAll().get(0).getId();
+        sampleTaskDto.setName("Updated task name");
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                .content(asJson(sampleTaskDto))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+
+        outboxDispatcher.dispatch();
+
+        List<OutboxEvent> taskEvents = outboxConsumer.eventsOf(TaskEvent.AGGREGATE_TYPE, taskId);
+        assertThat(taskEvents).extracting(OutboxEvent::type).containsExactly(CREATED, UPDATED);
+        assertThat(taskEvents.get(1).payload()).contains("Updated task name");
+        long labelId = labelRepository.findAll().get(0).getId();
+        assertThat(outboxConsumer.eventsOf(LabelEvent.AGGREGATE_TYPE, labelId))
+                .extracting(OutboxEvent::type)
+                .containsExactly(CREATED);
+        assertThat(outboxDispatcher.dispatch()).isZero();
+    }
+
+    @Test
+    public void getTaskHistoryWithChangedFields() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH).andExpect(status().isCreated());
+        long taskId = taskRepository.findAll().get(0).getId();
+        utils.regEntity(new TaskStatusDto("Another status"), existingUserEmail, STATUS_CONTROLLER_PATH);
+        long anotherStatusId = taskStatusRepository.findByName("Another status").get().getId();
+        sampleTaskDto.setName("Updated task name");
+        sampleTaskDto.setTaskStatusId(anotherStatusId);
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                .content(asJson(sampleTaskDto))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+        outboxDispatcher.dispatch();
+
+        String response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID + HISTORY, taskId), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        List<TaskHistoryEntry> history = fromJson(response, new TypeReference<>() {
+        });
+
+        assertThat(history).extracting(TaskHistoryEntry::getType).containsExactly(CREATED, UPDATED);
+        assertThat(history.get(1).getChanges())
+                .extracting(TaskFieldChange::getField)
+                .containsExactlyInAnyOrder("name", "taskStatusId");
+        assertThat(history.get(1).getChanges())
+                .extracting(TaskFieldChange::getTo)
+                .contains("Updated task name");
+    }
+
+    @Test
+    public void getTaskHistoryWithBulkUpdates() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH).andExpect(status().isCreated());
+        long taskId = taskRepository.findAll().get(0).getId();
+        utils.regEntity(new TaskStatusDto("Done"), existingUserEmail, STATUS_CONTROLLER_PATH);
+        utils.regEntity(new LabelDto("Another label"), existingUserEmail, LABEL_CONTROLLER_PATH);
+        long doneId = taskStatusRepository.findByName("Done").get().getId();
+        long labelId = labelRepository.findByName("Another label").get().getId();
+        outboxDispatcher.dispatch();
+
+        for (TaskBulkUpdateDto update : List.of(
+                new TaskBulkUpdateDto(List.of(taskId), TaskBulkUpdateDto.Operation.SET_STATUS, doneId, null, null),
+                new TaskBulkUpdateDto(List.of(taskId), TaskBulkUpdateDto.Operation.ADD_LABELS, null, null,
+                        Set.of(labelId)))) {
+            utils.perform(patch(BASE_URL + TASK_CONTROLLER_PATH)
+                            .content(asJson(update))
+                            .contentType(APPLICATION_JSON), existingUserEmail)
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("1"));
+        }
+        outboxDispatcher.dispatch();
+
+        String response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID + HISTORY, taskId), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        List<TaskHistoryEntry> history = fromJson(response, new TypeReference<>() {
+        });
+
+        assertThat(history).extracting(TaskHistoryEntry::getType).containsExactly(CREATED, UPDATED, UPDATED);
+        assertThat(history.get(1).getChanges())
+                .extracting(TaskFieldChange::getField)
+                .containsExactly("taskStatusId");
+        assertThat(history.get(2).getChanges())
+                .extracting(TaskFieldChange::getField)
+                .containsExactly("labelIds");
+    }
+
+    @Test
+    public void streamTaskEventsAndResume() throws Exception {
+        MvcResult subscription = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + EVENTS), existingUserEmail)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH).andExpect(status().isCreated());
+
+        String events = awaitEvent(subscription, "event:created");
+        assertThat(events).contains(sampleTaskDto.getName());
+        Matcher eventId = EVENT_ID.matcher(events);
+        assertThat(eventId.find()).isTrue();
+        String epoch = eventId.group(1);
+        long createdEventId = Long.parseLong(eventId.group(2));
+
+        MvcResult resumed = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + EVENTS)
+                        .header(LAST_EVENT_ID, epoch + "-" + (createdEventId - 1)), existingUserEmail)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(awaitEvent(resumed, "event:created")).contains("id:" + epoch + "-" + createdEventId);
+
+        // an id issued before a restart
+        MvcResult restarted = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + EVENTS)
+                        .header(LAST_EVENT_ID, "0-" + (createdEventId - 1)), existingUserEmail)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(awaitEvent(restarted, "event:" + TaskEventFeed.RESET))
+                .contains("event:" + TaskEventFeed.RESET)
+                .doesNotContain("event:created");
+    }
+
+    @Test
+    public void streamTaskEventsPastStalledSubscribers() throws Exception {
+        // clients that subscribe and never read, more of them than there are sender threads
+        List<Socket> stalled = new ArrayList<>();
+        try {
+            for (int i = 0; i < STALLED_SUBSCRIBERS; i++) {
+                Socket socket = new Socket();
+                socket.setReceiveBufferSize(1);
+                socket.connect(new InetSocketAddress("localhost", port));
+                OutputStream request = socket.getOutputStream();
+                request.write(("GET " + BASE_URL + TASK_CONTROLLER_PATH + EVENTS + " HTTP/1.1\r\n"
+                        + "Host: localhost\r\n"
+                        + "Authorization: " + utils.token(existingUserEmail) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                request.flush();
+                stalled.add(socket);
+            }
+            long deadline = System.currentTimeMillis() + EVENT_TIMEOUT_MS;
+            while (meterRegistry.get("tasks.events.subscribers").gauge().value() < STALLED_SUBSCRIBERS
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+
+            // events until the writes to them block for longer than the write timeout
+            Counter stalledSubscribers = meterRegistry.get("tasks.events.stalled").counter();
+            double stalledBefore = stalledSubscribers.count();
+            for (int batch = 0; batch < MAX_STALLING_BATCHES && stalledSubscribers.count() == stalledBefore; batch++) {
+                List<TaskDto> taskDtos = new ArrayList<>();
+                for (int i = 0; i < STALLING_BATCH_SIZE; i++) {
+                    taskDtos.add(new TaskDto("Batch task " + batch + "-" + i, LONG_DESCRIPTION,
+                            sampleTaskDto.getTaskStatusId(), sampleTaskDto.getExecutorId(),
+                            sampleTaskDto.getLabelIds()));
+                }
+                utils.perform(post(BASE_URL + TASK_CONTROLLER_PATH + BATCH)
+                        .content(asJson(taskDtos))
+                        .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isCreated());
+            }
+
+            assertThat(stalledSubscribers.count()).isGreaterThan(stalledBefore);
+
+            MvcResult subscription = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + EVENTS), existingUserEmail)
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH).andExpect(status().isCreated());
+
+            assertThat(awaitEvent(subscription, "event:created")).contains(sampleTaskDto.getName());
+        } finally {
+            for (Socket socket : stalled) {
+                socket.close();
+            }
+        }
+    }
+
+    // waits for the whole event, the blank line after its data ends it
+    private static String awaitEvent(MvcResult subscription, String event) throws Exception {
+        long deadline = System.currentTimeMillis() + EVENT_TIMEOUT_MS;
+        String content = subscription.getResponse().getContentAsString();
+        while (!isComplete(content, event) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+            content = subscription.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    private static boolean isComplete(String content, String event) {
+        int start = content.indexOf(event);
+        return start >= 0 && content.indexOf("\n\n", start) >= 0;
+    }
+
+    @Test
+    public void createTasksInBatch() throws Exception {
+        List<TaskDto> taskDtos = new ArrayList<>();
+        for (int i = 0; i < TASKS_IN_BATCH; i++) {
+            taskDtos.add(new TaskDto("Batch task " + i, "Batch description", sampleTaskDto.getTaskStatusId(),
+                    sampleTaskDto.getExecutorId(), sampleTaskDto.getLabelIds()));
+        }
+
+        MockHttpServletResponse response = utils.perform(post(BASE_URL + TASK_CONTROLLER_PATH + BATCH)
+                        .content(asJson(taskDtos))
+                        .contentType(APPLICATION_JSON), existingUserEmail)
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse();
+
+        List<Long> ids = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(ids).hasSize(TASKS_IN_BATCH).doesNotHaveDuplicates();
+        assertThat(taskRepository.count()).isEqualTo(TASKS_IN_BATCH);
+        Task lastTask = taskRepository.findById(ids.get(TASKS_IN_BATCH - 1)).get();
+        assertThat(lastTask.getName()).isEqualTo("Batch task " + (TASKS_IN_BATCH - 1));
+        assertThat(lastTask.getAuthor().getEmail()).isEqualTo(existingUserEmail);
+        assertThat(lastTask.getLabels()).extracting(Label::getId)
+                .containsExactlyElementsOf(sampleTaskDto.getLabelIds());
+        assertThat(lastTask.getVersion()).isZero();
+
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, lastTask.getId())
+                .content(asJson(sampleTaskDto))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+        assertThat(taskRepository.findById(lastTask.getId()).get().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void createTasksInBatchWithInvalidItemsFail() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        List<TaskDto> taskDtos = List.of(
+                new TaskDto("Valid task", null, sampleTaskDto.getTaskStatusId(), null, null),
+                new TaskDto(sampleTaskDto.getName(), null, sampleTaskDto.getTaskStatusId(), null, null),
+                new TaskDto("No", null, -1L, null, Set.of(-1L))
+        );
+
+        MockHttpServletResponse response = utils.perform(post(BASE_URL + TASK_CONTROLLER_PATH + BATCH)
+                        .content(asJson(taskDtos))
+                        .contentType(APPLICATION_JSON), existingUserEmail)
+                .andExpect(status().isUnprocessableEntity())
+                .andReturn()
+                .getResponse();
+
+        List<TaskBatchError> errors = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(errors).extracting(TaskBatchError::getIndex).containsExactly(1, 2);
+        assertThat(errors.get(0).getMessages()).containsExactly("name: already exists");
+        assertThat(errors.get(1).getMessages()).containsExactlyInAnyOrder(
+                "name: size must be between 3 and 1000", "taskStatusId: not found", "labelIds: not found");
+        assertThat(taskRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void bulkUpdateTasks() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        sampleTaskDto.setName("Another task name");
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        utils.regEntity(new TaskStatusDto("Done"), existingUserEmail, STATUS_CONTROLLER_PATH);
+        utils.regEntity(new LabelDto("Another label"), existingUserEmail, LABEL_CONTROLLER_PATH);
+        long doneId = taskStatusRepository.findByName("Done").get().getId();
+        long labelId = labelRepository.findByName("Another label").get().getId();
+        List<Long> ids = taskRepository.findAll().stream().map(Task::getId).toList();
+
+        TaskBulkUpdateDto setStatus = new TaskBulkUpdateDto(null, TaskBulkUpdateDto.Operation.SET_STATUS,
+                doneId, null, null);
+        utils.perform(patch(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("taskStatus", sampleTaskDto.getTaskStatusId() + "")
+                        .content(asJson(setStatus))
+                        .contentType(APPLICATION_JSON), existingUserEmail)
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        MockHttpServletResponse response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                        .param("taskStatus", doneId + ""), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        List<Task> tasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(tasks).extracting(Task::getId).containsExactlyInAnyOrderElementsOf(ids);
+
+        TaskBulkUpdateDto addLabel = new TaskBulkUpdateDto(ids, TaskBulkUpdateDto.Operation.ADD_LABELS,
+                null, null, Set.of(labelId));
+        for (String expectedCount : List.of("2", "0")) {
+            utils.perform(patch(BASE_URL + TASK_CONTROLLER_PATH)
+                            .content(asJson(addLabel))
+                            .contentType(APPLICATION_JSON), existingUserEmail)
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(expectedCount));
+        }
+        assertThat(taskRepository.findById(ids.get(0)).get().getLabels()).extracting(Label::getId)
+                .contains(labelId);
+
+        addLabel.setIds(null);
+        utils.perform(patch(BASE_URL + TASK_CONTROLLER_PATH)
+                        .content(asJson(addLabel))
+                        .contentType(APPLICATION_JSON), existingUserEmail)
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void twiceRegTheSameTaskFail() throws Exception {
         utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
@@ -163,6 +1151,160 @@ public class TaskControllerTest {
         assertThat(taskRepository.findByName(anotherTaskDto.getName())).isPresent();
     }
 
+    @Test
+    public void updateTaskWithStaleIfMatchFails() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        long taskId = taskRepository.findAll().get(0).getId();
+        String etag = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId), existingUserEmail)
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+
+        sampleTaskDto.setName("Another task name");
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                .header(IF_MATCH, etag)
+                .content(asJson(sampleTaskDto))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+
+        sampleTaskDto.setName("Concurrent task name");
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                .header(IF_MATCH, etag)
+                .content(asJson(sampleTaskDto))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isPreconditionFailed());
+        assertThat(taskRepository.findByName("Another task name")).isPresent();
+    }
+
+    @Test
+    public void concurrentUpdatesWithSameIfMatchApplyOnce() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        long taskId = taskRepository.findAll().get(0).getId();
+        String etag = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId), existingUserEmail)
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_UPDATES);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_UPDATES; i++) {
+                TaskDto dto = new TaskDto("Concurrent task " + i, null, sampleTaskDto.getTaskStatusId(),
+                        sampleTaskDto.getExecutorId(), sampleTaskDto.getLabelIds());
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                            .header(IF_MATCH, etag)
+                            .content(asJson(dto))
+                            .contentType(APPLICATION_JSON), existingUserEmail)
+                            .andReturn()
+                            .getResponse()
+                            .getStatus();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> status : statuses) {
+                results.add(status.get());
+            }
+            assertThat(results).containsOnlyOnce(OK.value());
+            assertThat(results).containsOnly(OK.value(), PRECONDITION_FAILED.value());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getFilteredTasksAfterStatusUpdate() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        utils.regEntity(new TaskStatusDto("Another status"), existingUserEmail, STATUS_CONTROLLER_PATH);
+        long anotherStatusId = taskStatusRepository.findAll().get(1).getId();
+        long taskId = taskRepository.findAll().get(0).getId();
+        TaskDto movedTaskDto = new TaskDto(
+                sampleTaskDto.getName(),
+                sampleTaskDto.getDescription(),
+                anotherStatusId,
+                sampleTaskDto.getExecutorId(),
+                null
+        );
+
+        utils.perform(put(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId)
+                .content(asJson(movedTaskDto))
+                .contentType(APPLICATION_JSON), existingUserEmail).andExpect(status().isOk());
+
+        MockHttpServletResponse oldStatusResponse = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                .param("taskStatus", sampleTaskDto.getTaskStatusId() + ""), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        MockHttpServletResponse newStatusResponse = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                .param("taskStatus", anotherStatusId + "")
+                .param("labels", sampleTaskDto.getLabelIds().iterator().next() + ""), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        List<Task> oldStatusTasks = fromJson(oldStatusResponse.getContentAsString(), new TypeReference<>() {
+        });
+        List<Task> newStatusTasks = fromJson(newStatusResponse.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(oldStatusTasks).isEmpty();
+        assertThat(newStatusTasks).extracting(Task::getId).containsExactly(taskId);
+    }
+
+    @Test
+    public void getFilteredTasksChangedBehindBitmapIndex() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        utils.regEntity(new TaskStatusDto("Another status"), existingUserEmail, STATUS_CONTROLLER_PATH);
+        long anotherStatusId = taskStatusRepository.findAll().get(1).getId();
+        Task task = taskRepository.findAll().get(0);
+
+        // a change made by another instance, which this instance's index has not caught up with
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("update tasks set task_status_id = ? where id = ?", anotherStatusId, task.getId());
+            taskChangeLog.onTaskEvent(new TaskEvent(UPDATED, task));
+        });
+
+        assertThat(filteredTaskIds("taskStatus", sampleTaskDto.getTaskStatusId())).isEmpty();
+        assertThat(filteredTaskIds("taskStatus", anotherStatusId)).containsExactly(task.getId());
+        MockHttpServletResponse response = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH + FACETS), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        Map<String, Map<Long, Long>> facets = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(facets.get("taskStatus")).containsExactly(Map.entry(anotherStatusId, 1L));
+
+        taskBitmapIndex.catchUp();
+        assertThat(taskBitmapIndex.changedSinceIndexed()).isEmpty();
+        assertThat(filteredTaskIds("taskStatus", anotherStatusId)).containsExactly(task.getId());
+    }
+
+    @Test
+    public void getFilteredTasksWithIdBeyondBitmapIndex() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        long taskId = taskRepository.findAll().get(0).getId();
+
+        taskBitmapIndex.put(ID_BEYOND_INT, sampleTaskDto.getTaskStatusId(), null, null, null);
+
+        assertThat(taskBitmapIndex.isComplete()).isFalse();
+        assertThat(filteredTaskIds("taskStatus", sampleTaskDto.getTaskStatusId())).containsExactly(taskId);
+        taskBitmapIndex.rebuild();
+        assertThat(taskBitmapIndex.isComplete()).isTrue();
+    }
+
+    private List<Long> filteredTaskIds(String param, long value) throws Exception {
+        MockHttpServletResponse response = utils.perform(get(BASE_URL + TASK_CONTROLLER_PATH)
+                .param(param, value + ""), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        List<Task> tasks = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        return tasks.stream().map(Task::getId).toList();
+    }
+
     @Test
     public void deleteTask() throws Exception {
         utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
@@ -178,6 +1320,23 @@ public class TaskControllerTest {
         assertThat(taskRepository.count()).isEqualTo(countBefore - 1);
     }
 
+    @Test
+    public void deleteTaskByAnotherUserFailsWithoutLoadingTask() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        utils.regEntity(anotherUserDto, USER_CONTROLLER_PATH);
+        long taskId = taskRepository.findAll().get(0).getId();
+        utils.perform(get(BASE_URL + STATUS_CONTROLLER_PATH), anotherUserDto.getEmail());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        utils.perform(delete(BASE_URL + TASK_CONTROLLER_PATH + ID, taskId), anotherUserDto.getEmail())
+                .andExpect(status().isForbidden());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(taskRepository.existsById(taskId)).isTrue();
+    }
+
 
     @Test
     public void getFilteredTask() throws Exception {
@@ -219,4 +1378,47 @@ public class TaskControllerTest {
         assertThat((long) filteredTasks.size()).isNotEqualTo(totalCount);
         assertThat((long) filteredTasks.size()).isEqualTo(expectedCount);
     }
+
+    @Test
+    public void getTaskFacets() throws Exception {
+        utils.regEntity(sampleTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        utils.regEntity(new TaskStatusDto("Another status"), existingUserEmail, STATUS_CONTROLLER_PATH);
+        long anotherStatusId = taskStatusRepository.findAll().get(1).getId();
+        TaskDto anotherTaskDto = new TaskDto(
+                "Another task name",
+                "Another description",
+                anotherStatusId,
+                sampleTaskDto.getExecutorId(),
+                sampleTaskDto.getLabelIds()
+        );
+        utils.regEntity(anotherTaskDto, existingUserEmail, TASK_CONTROLLER_PATH);
+        long labelId = sampleTaskDto.getLabelIds().iterator().next();
+
+        MockHttpServletResponse response = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH + FACETS), existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        Map<String, Map<Long, Long>> facets = fromJson(response.getContentAsString(), new TypeReference<>() {
+        });
+        assertThat(facets.get("taskStatus"))
+                .containsEntry(sampleTaskDto.getTaskStatusId(), 1L)
+                .containsEntry(anotherStatusId, 1L);
+        assertThat(facets.get("executor")).containsExactly(Map.entry(sampleTaskDto.getExecutorId(), 2L));
+        assertThat(facets.get("labels")).containsExactly(Map.entry(labelId, 2L));
+
+        MockHttpServletResponse filteredResponse = utils.perform(
+                get(BASE_URL + TASK_CONTROLLER_PATH + FACETS).param("taskStatus", anotherStatusId + ""),
+                existingUserEmail)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        Map<String, Map<Long, Long>> filteredFacets = fromJson(filteredResponse.getContentAsString(),
+                new TypeReference<>() {
+                });
+        assertThat(filteredFacets.get("taskStatus")).containsExactly(Map.entry(anotherStatusId, 1L));
+        assertThat(filteredFacets.get("labels")).containsExactly(Map.entry(labelId, 1L));
+    }
 }
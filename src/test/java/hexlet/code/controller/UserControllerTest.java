@@ -1,6 +1,7 @@
 package hexlet.code.controller;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import hexlet.code.component.VerifiedTokenCache;
 import hexlet.code.config.SpringConfigForIT;
 import hexlet.code.dto.LabelDto;
 import hexlet.code.dto.LoginDto;
@@ -9,9 +10,12 @@ import hexlet.code.dto.TaskStatusDto;
 import hexlet.code.dto.UserDto;
 import hexlet.code.model.User;
 import hexlet.code.repository.LabelRepository;
+import hexlet.code.repository.RefreshTokenRepository;
 import hexlet.code.repository.TaskStatusRepository;
 import hexlet.code.repository.UserRepository;
+import hexlet.code.service.UserService;
 import hexlet.code.utils.TestUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,11 +26,15 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static hexlet.code.config.security.SecurityConfig.LOGIN;
+import static hexlet.code.controller.AuthController.REFRESH;
+import static hexlet.code.controller.AuthController.REFRESH_TOKEN_HEADER;
 import static hexlet.code.controller.LabelController.LABEL_CONTROLLER_PATH;
 import static hexlet.code.controller.TaskController.TASK_CONTROLLER_PATH;
 import static hexlet.code.controller.TaskStatusController.STATUS_CONTROLLER_PATH;
@@ -36,12 +44,15 @@ import static hexlet.code.utils.TestUtils.BASE_URL;
 import static hexlet.code.utils.TestUtils.asJson;
 import static hexlet.code.utils.TestUtils.fromJson;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -81,6 +92,18 @@ public class UserControllerTest {
     @Autowired
     private TestUtils utils;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
     @BeforeEach
     public void initialization() throws Exception {
         utils.setUp();
@@ -143,7 +166,9 @@ public class UserControllerTest {
         MockHttpServletRequestBuilder loginRequest =
                 post(BASE_URL + LOGIN).content(asJson(loginDto)).contentType(APPLICATION_JSON);
 
-        utils.perform(loginRequest).andExpect(status().isOk());
+        utils.performAsync(loginRequest)
+                .andExpect(status().isOk())
+                .andExpect(header().exists(REFRESH_TOKEN_HEADER));
     }
 
     @Test
@@ -156,7 +181,127 @@ public class UserControllerTest {
         MockHttpServletRequestBuilder loginRequest =
                 post(BASE_URL + LOGIN).content(asJson(loginDto)).contentType(APPLICATION_JSON);
 
-        utils.perform(loginRequest).andExpect(status().isUnauthorized());
+        utils.performAsync(loginRequest).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshTokenRotates() throws Exception {
+        utils.regEntity(SAMPLE_USER_DTO, USER_CONTROLLER_PATH);
+        LoginDto loginDto = new LoginDto(SAMPLE_USER_DTO.getEmail(), SAMPLE_USER_DTO.getPassword());
+        String refreshToken = utils.performAsync(post(BASE_URL + LOGIN)
+                        .content(asJson(loginDto))
+                        .contentType(APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getHeader(REFRESH_TOKEN_HEADER);
+
+        MockHttpServletResponse response = utils.perform(post(BASE_URL + REFRESH)
+                        .header(REFRESH_TOKEN_HEADER, refreshToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        assertThat(response.getHeader(REFRESH_TOKEN_HEADER)).isNotBlank().isNotEqualTo(refreshToken);
+        utils.perform(get(BASE_URL + STATUS_CONTROLLER_PATH).header(AUTHORIZATION, response.getContentAsString()))
+                .andExpect(status().isOk());
+
+        utils.perform(post(BASE_URL + REFRESH).header(REFRESH_TOKEN_HEADER, refreshToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void rejectedRefreshTokenStaysDeleted() throws Exception {
+        utils.regEntity(SAMPLE_USER_DTO, USER_CONTROLLER_PATH);
+        LoginDto loginDto = new LoginDto(SAMPLE_USER_DTO.getEmail(), SAMPLE_USER_DTO.getPassword());
+        String refreshToken = utils.performAsync(post(BASE_URL + LOGIN)
+                        .content(asJson(loginDto))
+                        .contentType(APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getHeader(REFRESH_TOKEN_HEADER);
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+        User user = userRepository.findAll().get(0);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+
+        utils.perform(post(BASE_URL + REFRESH).header(REFRESH_TOKEN_HEADER, refreshToken))
+                .andExpect(status().isUnauthorized());
+
+        assertThat(refreshTokenRepository.count()).isZero();
+    }
+
+    @Test
+    void repeatedTokenVerifiedOnce() throws Exception {
+        utils.regEntity(SAMPLE_USER_DTO, USER_CONTROLLER_PATH);
+        String token = login(SAMPLE_USER_DTO);
+        double hitsBefore = verifiedTokenHits();
+
+        for (int i = 0; i < 2; i++) {
+            utils.perform(get(BASE_URL + STATUS_CONTROLLER_PATH).header(AUTHORIZATION, token))
+                    .andExpect(status().isOk());
+        }
+
+        assertThat(verifiedTokenHits()).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void loginTokenRejectedAfterUpdate() throws Exception {
+        utils.regEntity(SAMPLE_USER_DTO, USER_CONTROLLER_PATH);
+        User user = userRepository.findAll().get(0);
+        String token = login(SAMPLE_USER_DTO);
+
+        utils.perform(get(BASE_URL + STATUS_CONTROLLER_PATH).header(AUTHORIZATION, token))
+                .andExpect(status().isOk());
+
+        UserDto renamed = new UserDto(SAMPLE_USER_DTO.getEmail(), "Renamed", SAMPLE_USER_DTO.getLastName(),
+                SAMPLE_USER_DTO.getPassword());
+        utils.perform(put(BASE_URL + USER_CONTROLLER_PATH + ID, user.getId())
+                        .content(asJson(renamed))
+                        .contentType(APPLICATION_JSON), user.getEmail())
+                .andExpect(status().isOk());
+        utils.perform(get(BASE_URL + STATUS_CONTROLLER_PATH).header(AUTHORIZATION, token))
+                .andExpect(status().isOk());
+
+        renamed.setPassword("another password");
+        utils.perform(put(BASE_URL + USER_CONTROLLER_PATH + ID, user.getId())
+                        .content(asJson(renamed))
+                        .contentType(APPLICATION_JSON), user.getEmail())
+                .andExpect(status().isOk());
+
+        assertThatThrownBy(() -> utils.perform(get(BASE_URL + STATUS_CONTROLLER_PATH).header(AUTHORIZATION, token)))
+                .hasMessage("Unauthorized");
+    }
+
+    @Test
+    void tokenVersionReadBeforeUpdateCommitNotCached() throws Exception {
+        utils.regEntity(SAMPLE_USER_DTO, USER_CONTROLLER_PATH);
+        User user = userRepository.findAll().get(0);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.updateUser(user.getId(), ANOTHER_USER_DTO);
+            // a request running meanwhile reads and caches the committed version
+            assertThat(CompletableFuture.supplyAsync(() -> userService.getTokenVersion(user.getId())).join())
+                    .isEqualTo(user.getTokenVersion());
+        });
+
+        assertThat(userService.getTokenVersion(user.getId())).isEqualTo(user.getTokenVersion() + 1);
+    }
+
+    private String login(UserDto user) throws Exception {
+        LoginDto loginDto = new LoginDto(user.getEmail(), user.getPassword());
+        return utils.performAsync(post(BASE_URL + LOGIN).content(asJson(loginDto)).contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .trim();
+    }
+
+    private double verifiedTokenHits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", VerifiedTokenCache.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
     }
 
     @Test
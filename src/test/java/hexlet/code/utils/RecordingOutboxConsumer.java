@@ -0,0 +1,25 @@
+package hexlet.code.utils;
+
+import hexlet.code.event.OutboxConsumer;
+import hexlet.code.event.OutboxEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Component
+public class RecordingOutboxConsumer implements OutboxConsumer {
+
+    private final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void accept(List<OutboxEvent> batch) {
+        events.addAll(batch);
+    }
+
+    public List<OutboxEvent> eventsOf(String aggregateType, long aggregateId) {
+        return events.stream()
+                .filter(event -> event.aggregateType().equals(aggregateType) && event.aggregateId() == aggregateId)
+                .toList();
+    }
+}
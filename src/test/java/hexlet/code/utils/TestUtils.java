@@ -4,17 +4,26 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hexlet.code.component.JWTHelper;
+import hexlet.code.component.TaskBitmapIndex;
+import hexlet.code.component.TaskSearchIndex;
 import hexlet.code.dto.Transferable;
 import hexlet.code.repository.LabelRepository;
 import hexlet.code.repository.TaskRepository;
 import hexlet.code.repository.TaskStatusRepository;
 import hexlet.code.repository.UserRepository;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import javax.persistence.EntityManagerFactory;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -22,7 +31,9 @@ import java.util.Map;
 
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 @Component
 public class TestUtils {
@@ -47,22 +58,70 @@ public class TestUtils {
     @Autowired
     private LabelRepository labelRepository;
 
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired(required = false)
+    private TaskBitmapIndex taskBitmapIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public void setUp() {
         taskRepository.deleteAll();
         labelRepository.deleteAll();
         taskStatusRepository.deleteAll();
         userRepository.deleteAll();
+        jdbcTemplate.update("delete from task_changes");
+        clearCaches();
+        taskSearchIndex.rebuild();
+        if (taskBitmapIndex != null) {
+            taskBitmapIndex.rebuild();
+        }
+    }
+
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
     }
 
     public ResultActions perform(final MockHttpServletRequestBuilder request, final String byUser) throws Exception {
-        final String token = jwtHelper.expiring(Map.of("username", byUser));
-        request.header(AUTHORIZATION, token);
+        request.header(AUTHORIZATION, token(byUser));
 
         return perform(request);
     }
 
+    public String token(final String byUser) {
+        return userRepository.findByEmail(byUser)
+                .map(user -> jwtHelper.expiring(Map.of(
+                        "username", byUser,
+                        JWTHelper.USER_ID, user.getId(),
+                        JWTHelper.TOKEN_VERSION, user.getTokenVersion()
+                )))
+                .orElseGet(() -> jwtHelper.expiring(Map.of("username", byUser)));
+    }
+
+    // completes reads answered from a future, as the servlet container would; streams are left open
     public ResultActions perform(final MockHttpServletRequestBuilder request) throws Exception {
-        return mockMvc.perform(request);
+        final ResultActions result = mockMvc.perform(request);
+        final MvcResult mvcResult = result.andReturn();
+        if (mvcResult.getRequest().isAsyncStarted()
+                && mvcResult.getHandler() instanceof HandlerMethod handler
+                && !ResponseBodyEmitter.class.isAssignableFrom(handler.getReturnType().getParameterType())) {
+            return mockMvc.perform(asyncDispatch(mvcResult));
+        }
+        return result;
+    }
+
+    public ResultActions performAsync(final MockHttpServletRequestBuilder request) throws Exception {
+        final MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result));
     }
 
     private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();